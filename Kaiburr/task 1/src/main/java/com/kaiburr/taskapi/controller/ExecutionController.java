@@ -0,0 +1,56 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.service.OutputStorageService;
+import com.kaiburr.taskapi.service.TaskService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/executions")
+@Tag(name = "Task Executions", description = "APIs for task execution results")
+@CrossOrigin(origins = "*")
+public class ExecutionController {
+
+    private static final MediaType TEXT_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private OutputStorageService outputStorageService;
+
+    @GetMapping("/{id}/output")
+    @Operation(summary = "Download the full output of an execution", description = "Streams the complete output, including the part omitted from the stored execution when the output was large")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Output streamed successfully"),
+            @ApiResponse(responseCode = "404", description = "Execution or output not found")
+    })
+    public ResponseEntity<?> getExecutionOutput(
+            @Parameter(description = "ID of the execution", required = true) @PathVariable String id) {
+
+        // Large outputs are streamed from their spill file without loading them into memory
+        Optional<Path> file = outputStorageService.findOutputFile(id);
+        if (file.isPresent()) {
+            return ResponseEntity.ok().contentType(TEXT_UTF8).body(new FileSystemResource(file.get()));
+        }
+
+        Optional<TaskExecution> execution = taskService.findExecutionById(id);
+        if (execution.isEmpty() || execution.get().isOutputTruncated()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().contentType(TEXT_UTF8).body(execution.get().getOutput());
+    }
+}
@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 
 public class TaskExecution {
 
+    private String id;
+
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS'Z'")
     private LocalDateTime startTime;
 
@@ -15,6 +17,14 @@ public class TaskExecution {
 
     private String output;
 
+    // Null when the process was killed (timeout or output cap)
+    private Integer exitCode;
+
+    // Size of the full output; output holds only its head and tail when outputTruncated is set
+    private long outputBytes;
+
+    private boolean outputTruncated;
+
     // Default constructor
     public TaskExecution() {
     }
@@ -27,6 +37,14 @@ public class TaskExecution {
     }
 
     // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
@@ -51,12 +69,39 @@ public class TaskExecution {
         this.output = output;
     }
 
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(Integer exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    public boolean isOutputTruncated() {
+        return outputTruncated;
+    }
+
+    public void setOutputTruncated(boolean outputTruncated) {
+        this.outputTruncated = outputTruncated;
+    }
+
     @Override
     public String toString() {
         return "TaskExecution{" +
-                "startTime=" + startTime +
+                "id='" + id + '\'' +
+                ", startTime=" + startTime +
                 ", endTime=" + endTime +
                 ", output='" + output + '\'' +
+                ", exitCode=" + exitCode +
+                ", outputBytes=" + outputBytes +
                 '}';
     }
 }
@@ -0,0 +1,217 @@
+package com.kaiburr.taskapi.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs local shell commands without dedicating a blocked reader thread to each
+ * process. A single pump thread polls every running process for available
+ * output, copies it into a bounded buffer and enforces the wall-clock timeout
+ * and output cap by killing the whole process tree.
+ */
+@Component
+public class ProcessExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessExecutor.class);
+
+    private static final int READ_CHUNK_BYTES = 8192;
+
+    private final OutputStorageService outputStorageService;
+    private final long timeoutMillis;
+    private final long maxOutputBytes;
+    private final long idlePollNanos;
+
+    private final List<RunningProcess> running = new CopyOnWriteArrayList<>();
+    private final Thread pump;
+    private volatile boolean shutdown;
+
+    public ProcessExecutor(OutputStorageService outputStorageService,
+            @Value("${task.execution.timeout-seconds:30}") long timeoutSeconds,
+            @Value("${task.execution.max-output-bytes:268435456}") long maxOutputBytes,
+            @Value("${task.execution.pump-interval-millis:10}") long pumpIntervalMillis) {
+        this.outputStorageService = outputStorageService;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.maxOutputBytes = maxOutputBytes;
+        this.idlePollNanos = TimeUnit.MILLISECONDS.toNanos(pumpIntervalMillis);
+        this.pump = new Thread(this::pumpLoop, "process-output-pump");
+        this.pump.setDaemon(true);
+        this.pump.start();
+    }
+
+    /**
+     * Start the command and return a future completed when it exits, times out
+     * or exceeds the output cap. Large output is spilled under the execution id.
+     */
+    public CompletableFuture<ProcessResult> execute(String command, String executionId) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder();
+
+        // Set up command based on OS
+        String os = System.getProperty("os.name").toLowerCase();
+        if (os.contains("win")) {
+            processBuilder.command("cmd", "/c", command);
+        } else {
+            processBuilder.command("sh", "-c", command);
+        }
+
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectInput(ProcessBuilder.Redirect.from(nullDevice(os)));
+
+        RunningProcess runningProcess = new RunningProcess(processBuilder.start(),
+                outputStorageService.newCapture(executionId), System.currentTimeMillis() + timeoutMillis);
+        running.add(runningProcess);
+        LockSupport.unpark(pump);
+        return runningProcess.result;
+    }
+
+    /**
+     * Run the command and wait for its result.
+     */
+    public ProcessResult run(String command, String executionId) throws IOException, InterruptedException {
+        try {
+            return execute(command, executionId).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Command execution failed", e.getCause());
+        }
+    }
+
+    private void pumpLoop() {
+        byte[] chunk = new byte[READ_CHUNK_BYTES];
+        while (!shutdown) {
+            boolean progressed = false;
+            for (RunningProcess runningProcess : running) {
+                try {
+                    progressed |= runningProcess.pump(chunk);
+                } catch (RuntimeException | IOException e) {
+                    logger.warn("Failed to pump process output: {}", e.getMessage());
+                    runningProcess.kill();
+                    runningProcess.finish(null);
+                }
+                if (runningProcess.result.isDone()) {
+                    running.remove(runningProcess);
+                }
+            }
+            if (!progressed) {
+                LockSupport.parkNanos(idlePollNanos);
+            }
+        }
+    }
+
+    private static File nullDevice(String os) {
+        return new File(os.contains("win") ? "NUL" : "/dev/null");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        for (RunningProcess runningProcess : running) {
+            runningProcess.kill();
+            runningProcess.finish(null);
+        }
+        running.clear();
+    }
+
+    private final class RunningProcess {
+
+        private final Process process;
+        private final InputStream output;
+        private final long deadline;
+        private final OutputCapture capture;
+        private final CompletableFuture<ProcessResult> result = new CompletableFuture<>();
+        private boolean timedOut;
+        private boolean truncated;
+
+        RunningProcess(Process process, OutputCapture capture, long deadline) {
+            this.process = process;
+            this.capture = capture;
+            this.output = process.getInputStream();
+            this.deadline = deadline;
+        }
+
+        /**
+         * Copy whatever output is available without blocking and enforce the
+         * limits. Returns true if any bytes were read.
+         */
+        boolean pump(byte[] chunk) throws IOException {
+            boolean progressed = drainAvailable(chunk);
+
+            if (!process.isAlive()) {
+                // The exited process may have left output in the pipe; a background
+                // child still holding the pipe open must not keep us waiting
+                drainAvailable(chunk);
+                finish(process.exitValue());
+                return true;
+            }
+
+            if (truncated) {
+                logger.warn("Command exceeded {} bytes of output, killing process tree", maxOutputBytes);
+                kill();
+                finish(null);
+            } else if (System.currentTimeMillis() > deadline) {
+                timedOut = true;
+                kill();
+                finish(null);
+            }
+            return progressed;
+        }
+
+        private boolean drainAvailable(byte[] chunk) throws IOException {
+            boolean progressed = false;
+            int available;
+            while (!truncated && (available = output.available()) > 0) {
+                int read = output.read(chunk, 0, Math.min(available, chunk.length));
+                if (read <= 0) {
+                    break;
+                }
+                long room = maxOutputBytes - capture.getTotalBytes();
+                capture.write(chunk, 0, (int) Math.min(read, room));
+                truncated = read > room;
+                progressed = true;
+            }
+            return progressed;
+        }
+
+        void kill() {
+            process.toHandle().descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        void finish(Integer exitCode) {
+            try {
+                output.close();
+            } catch (IOException ignored) {
+                // Nothing left to read
+            }
+
+            CapturedOutput captured;
+            try {
+                captured = capture.finish();
+            } catch (IOException e) {
+                logger.warn("Failed to store command output: {}", e.getMessage());
+                captured = new CapturedOutput("Failed to store command output: " + e.getMessage(),
+                        capture.getTotalBytes(), true, null);
+            }
+
+            String text = captured.text().trim();
+            if (timedOut) {
+                text += "\nCommand timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + " seconds";
+            } else if (truncated) {
+                text += "\nOutput truncated after " + maxOutputBytes + " bytes";
+            }
+            result.complete(new ProcessResult(text, exitCode, timedOut, truncated,
+                    captured.totalBytes(), captured.elided()));
+        }
+    }
+}
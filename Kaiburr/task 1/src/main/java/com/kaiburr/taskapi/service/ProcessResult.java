@@ -0,0 +1,15 @@
+package com.kaiburr.taskapi.service;
+
+/**
+ * Outcome of a local command run by {@link ProcessExecutor} or {@link ShellWorkerPool}.
+ *
+ * @param output       captured stdout/stderr to store, possibly only its head and tail
+ * @param exitCode     process exit code, or null if the process was killed
+ * @param timedOut     true if the wall-clock timeout killed the process
+ * @param truncated    true if output beyond the byte cap was dropped
+ * @param outputBytes  number of output bytes captured
+ * @param outputElided true if {@code output} omits the middle of the captured output
+ */
+public record ProcessResult(String output, Integer exitCode, boolean timedOut, boolean truncated,
+        long outputBytes, boolean outputElided) {
+}
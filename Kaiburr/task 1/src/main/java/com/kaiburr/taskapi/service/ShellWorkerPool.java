@@ -0,0 +1,246 @@
+package com.kaiburr.taskapi.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional pool of pre-started {@code sh} workers. Forking a shell from a
+ * large JVM costs far more than running a short command, so each worker stays
+ * alive and receives commands over stdin; the command runs in a subshell of
+ * the worker and its output is terminated by a per-command marker line that
+ * carries the exit code.
+ *
+ * <p>A worker is replaced after a fixed number of commands, and immediately
+ * after a timeout, an oversized output or any protocol error.
+ */
+@Component
+public class ShellWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShellWorkerPool.class);
+
+    private final boolean enabled;
+    private final int maxCommandsPerWorker;
+    private final long timeoutMillis;
+    private final long maxOutputBytes;
+    private final OutputStorageService outputStorageService;
+
+    private final BlockingQueue<ShellWorker> idle;
+    private final ScheduledThreadPoolExecutor background = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "shell-worker-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean shutdown;
+
+    public ShellWorkerPool(OutputStorageService outputStorageService,
+            @Value("${task.execution.pool.enabled:false}") boolean enabled,
+            @Value("${task.execution.pool.size:4}") int size,
+            @Value("${task.execution.pool.max-commands-per-worker:500}") int maxCommandsPerWorker,
+            @Value("${task.execution.timeout-seconds:30}") long timeoutSeconds,
+            @Value("${task.execution.max-output-bytes:268435456}") long maxOutputBytes) {
+        this.outputStorageService = outputStorageService;
+        // Workers speak sh, so the pool is never used on Windows
+        this.enabled = enabled && !System.getProperty("os.name").toLowerCase().contains("win");
+        this.maxCommandsPerWorker = maxCommandsPerWorker;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.maxOutputBytes = maxOutputBytes;
+        this.idle = new ArrayBlockingQueue<>(Math.max(size, 1));
+        // Every command cancels its watchdog; drop those instead of queueing them until the timeout
+        background.setRemoveOnCancelPolicy(true);
+
+        if (this.enabled) {
+            for (int i = 0; i < size; i++) {
+                startReplacement();
+            }
+            logger.info("Started shell worker pool with {} workers", size);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run a command on an idle worker, waiting for one if all are busy. A busy
+     * worker is released within the command timeout, so the wait is bounded by
+     * it as well.
+     */
+    public ProcessResult run(String command, String executionId) throws IOException, InterruptedException {
+        ShellWorker worker = idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (worker == null) {
+            throw new IOException("No shell worker became available within "
+                    + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + " seconds");
+        }
+        boolean healthy = false;
+        OutputCapture capture = outputStorageService.newCapture(executionId);
+        try {
+            ProcessResult result = worker.run(command, capture);
+            healthy = result.exitCode() != null;
+            return result;
+        } catch (IOException | RuntimeException e) {
+            // A failed run leaves no execution to download the spilled output of
+            try {
+                capture.discard();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        } finally {
+            if (healthy && worker.commandsRun < maxCommandsPerWorker && !shutdown) {
+                idle.offer(worker);
+            } else {
+                worker.destroy();
+                startReplacement();
+            }
+        }
+    }
+
+    private void startReplacement() {
+        if (shutdown) {
+            return;
+        }
+        background.execute(() -> {
+            try {
+                idle.put(new ShellWorker());
+            } catch (IOException e) {
+                logger.error("Failed to start shell worker, retrying", e);
+                background.schedule(this::startReplacement, 1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        background.shutdownNow();
+        ShellWorker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    private final class ShellWorker {
+
+        private final Process process;
+        private final InputStream output;
+        private final OutputStream input;
+        private int commandsRun;
+
+        ShellWorker() throws IOException {
+            this.process = new ProcessBuilder("sh").redirectErrorStream(true).start();
+            this.output = process.getInputStream();
+            this.input = process.getOutputStream();
+        }
+
+        ProcessResult run(String command, OutputCapture capture) throws IOException {
+            commandsRun++;
+            String nonce = UUID.randomUUID().toString().replace("-", "");
+            String marker = "\n" + nonce + " ";
+
+            // The subshell keeps exit/cd/exported variables from leaking into the worker
+            String frame = "( eval '" + command.replace("'", "'\\''") + "' ) </dev/null 2>&1; "
+                    + "printf '\\n%s %d\\n' " + nonce + " \"$?\"\n";
+            input.write(frame.getBytes(StandardCharsets.UTF_8));
+            input.flush();
+
+            // Kill the command (and with it the worker) if it overruns the timeout;
+            // the blocked read below then sees end of stream
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> watchdog = background.schedule(() -> {
+                timedOut.set(true);
+                destroy();
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+            // Received bytes are held as ISO-8859-1 chars so the marker can be searched
+            // without decoding. Only a window that could still hold the marker (plus its
+            // exit code) is kept back; everything before it goes to the capture.
+            int keepBack = marker.length() + 16;
+            StringBuilder window = new StringBuilder();
+            byte[] chunk = new byte[8192];
+            try {
+                while (true) {
+                    int read = output.read(chunk);
+                    if (read < 0) {
+                        boolean truncated = capture(capture, window, window.length());
+                        return result(capture, null, timedOut.get(), truncated);
+                    }
+                    // The marker may have arrived without its exit code, so rescan the kept-back part
+                    int scanFrom = Math.max(0, window.length() - keepBack);
+                    window.append(new String(chunk, 0, read, StandardCharsets.ISO_8859_1));
+
+                    int markerAt = window.indexOf(marker, scanFrom);
+                    if (markerAt >= 0) {
+                        if (timedOut.get()) {
+                            boolean truncated = capture(capture, window, markerAt);
+                            return result(capture, null, true, truncated);
+                        }
+                        int lineEnd = window.indexOf("\n", markerAt + marker.length());
+                        if (lineEnd >= 0) {
+                            int exitCode = Integer.parseInt(window.substring(markerAt + marker.length(), lineEnd));
+                            // The command has exited, so the worker stays usable even if the cap was hit
+                            boolean truncated = capture(capture, window, markerAt);
+                            return result(capture, exitCode, false, truncated);
+                        }
+                    } else if (window.length() > keepBack && capture(capture, window, window.length() - keepBack)) {
+                        logger.warn("Command exceeded {} bytes of output, killing shell worker", maxOutputBytes);
+                        destroy();
+                        return result(capture, null, false, true);
+                    }
+                }
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+
+        /**
+         * Move the first {@code end} chars of the window to the capture, dropping
+         * whatever exceeds the output cap. Returns true if anything was dropped.
+         */
+        private boolean capture(OutputCapture capture, StringBuilder window, int end) throws IOException {
+            long room = maxOutputBytes - capture.getTotalBytes();
+            int kept = (int) Math.min(end, room);
+            capture.write(window.substring(0, kept).getBytes(StandardCharsets.ISO_8859_1));
+            window.delete(0, end);
+            return end > room;
+        }
+
+        private ProcessResult result(OutputCapture capture, Integer exitCode, boolean timedOut, boolean truncated)
+                throws IOException {
+            CapturedOutput captured = capture.finish();
+            String text = captured.text().trim();
+            if (timedOut) {
+                text += "\nCommand timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + " seconds";
+            } else if (truncated) {
+                text += "\nOutput truncated after " + maxOutputBytes + " bytes";
+            } else if (exitCode == null) {
+                text += "\nShell worker exited unexpectedly";
+            }
+            return new ProcessResult(text, exitCode, timedOut, truncated, captured.totalBytes(), captured.elided());
+        }
+
+        void destroy() {
+            // Kill the worker first so it can't report the killed command as a normal exit
+            List<ProcessHandle> descendants = process.toHandle().descendants().toList();
+            process.destroyForcibly();
+            descendants.forEach(ProcessHandle::destroyForcibly);
+        }
+    }
+}
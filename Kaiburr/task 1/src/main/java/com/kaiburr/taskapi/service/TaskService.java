@@ -6,13 +6,11 @@ import com.kaiburr.taskapi.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 
 @Service
 public class TaskService {
@@ -20,6 +18,12 @@ public class TaskService {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private ProcessExecutor processExecutor;
+
+    @Autowired
+    private ShellWorkerPool shellWorkerPool;
+
     public List<Task> getAllTasks() {
         return taskRepository.findAll();
     }
@@ -61,40 +65,31 @@ public class TaskService {
 
     private TaskExecution executeCommand(String command) throws IOException, InterruptedException {
         LocalDateTime startTime = LocalDateTime.now();
+        String executionId = UUID.randomUUID().toString();
 
-        ProcessBuilder processBuilder = new ProcessBuilder();
-
-        // Set up command based on OS
-        String os = System.getProperty("os.name").toLowerCase();
-        if (os.contains("win")) {
-            processBuilder.command("cmd", "/c", command);
-        } else {
-            processBuilder.command("sh", "-c", command);
-        }
-
-        processBuilder.redirectErrorStream(true);
-
-        Process process = processBuilder.start();
-
-        // Read output
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-        }
-
-        // Wait for process to complete with timeout
-        boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-        if (!finished) {
-            process.destroyForcibly();
-            output.append("\nCommand timed out after 30 seconds");
-        }
+        // Output is pumped asynchronously; timeout and output cap kill the process tree
+        ProcessResult result = shellWorkerPool.isEnabled()
+                ? shellWorkerPool.run(command, executionId)
+                : processExecutor.run(command, executionId);
 
         LocalDateTime endTime = LocalDateTime.now();
 
-        return new TaskExecution(startTime, endTime, output.toString().trim());
+        TaskExecution execution = new TaskExecution(startTime, endTime, result.output());
+        execution.setId(executionId);
+        execution.setExitCode(result.exitCode());
+        execution.setOutputBytes(result.outputBytes());
+        execution.setOutputTruncated(result.outputElided());
+        return execution;
+    }
+
+    /**
+     * Find an execution by its id across all tasks.
+     */
+    public Optional<TaskExecution> findExecutionById(String executionId) {
+        return taskRepository.findByExecutionId(executionId)
+                .flatMap(task -> task.getTaskExecutions().stream()
+                        .filter(execution -> executionId.equals(execution.getId()))
+                        .findFirst());
     }
 
     public boolean existsById(String id) {
@@ -27,6 +27,7 @@ kubectl wait --for=condition=available --timeout=300s deployment/mongodb
 
 # Deploy the application
 Write-Host "🚀 Deploying Task Management API..." -ForegroundColor Yellow
+kubectl apply -f k8s/priority-classes.yaml
 kubectl apply -f k8s/app-deployment.yaml
 
 # Wait for application to be ready
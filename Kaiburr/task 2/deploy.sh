@@ -35,6 +35,7 @@ kubectl wait --for=condition=available --timeout=300s deployment/mongodb
 
 # Deploy the application
 echo "🚀 Deploying Task Management API..."
+kubectl apply -f k8s/priority-classes.yaml
 kubectl apply -f k8s/app-deployment.yaml
 
 # Wait for application to be ready
@@ -0,0 +1,54 @@
+#!/bin/bash
+
+# Measures application startup time of the image with and without the
+# fast-startup optimizations (Spring AOT + AppCDS). Both variants run from the
+# same image; the baseline overrides the entrypoint with a plain JVM launch.
+#
+# Usage: ./measure-startup.sh [runs] [image]
+
+set -e
+
+RUNS=${1:-5}
+IMAGE=${2:-task-management-api:k8s}
+NETWORK=startup-measure
+MONGO=startup-measure-mongo
+
+cleanup() {
+    docker rm -f "$MONGO" > /dev/null 2>&1 || true
+    docker network rm "$NETWORK" > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+docker network create "$NETWORK" > /dev/null
+docker run -d --name "$MONGO" --network "$NETWORK" mongo:7 > /dev/null
+
+# Start a container and print the time Spring reports once the context is ready
+measure() {
+    local name=startup-measure-app
+    docker run -d --name "$name" --network "$NETWORK" -e MONGODB_HOST="$MONGO" "$@" > /dev/null
+    local line=""
+    for _ in $(seq 1 120); do
+        line=$(docker logs "$name" 2>&1 | grep -m1 "Started TaskManagementApiApplication" || true)
+        [ -n "$line" ] && break
+        sleep 0.5
+    done
+    docker rm -f "$name" > /dev/null
+    echo "$line" | sed -E 's/.* in ([0-9.]+) seconds \(process running for ([0-9.]+)\).*/\1 \2/'
+}
+
+report() {
+    local label=$1
+    shift
+    local total=0
+    echo "$label"
+    for run in $(seq 1 "$RUNS"); do
+        read -r context process <<< "$(measure "$@")"
+        echo "  run $run: context ${context}s, process ${process}s"
+        total=$(echo "$total + $process" | bc)
+    done
+    echo "  average process startup: $(echo "scale=2; $total / $RUNS" | bc)s"
+}
+
+report "Baseline (no AOT, no CDS)" --entrypoint java "$IMAGE" \
+    -cp "application.jar:lib/*" com.kaiburr.taskapi.TaskManagementApiApplication
+report "Fast startup (AOT + AppCDS)" "$IMAGE"
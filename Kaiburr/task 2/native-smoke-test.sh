@@ -0,0 +1,73 @@
+#!/bin/bash
+
+# Smoke test for the native executable: starts it against a local MongoDB,
+# runs create / read / search / delete through the REST API, and reports
+# startup time and resident memory.
+#
+# Usage: ./native-smoke-test.sh   (builds target/task-management-api if missing; needs Docker for MongoDB)
+
+set -e
+
+BINARY=target/task-management-api
+PORT=${PORT:-8089}
+BASE_URL="http://localhost:$PORT/api/tasks"
+MONGO=native-smoke-mongo
+
+if [ ! -x "$BINARY" ]; then
+    echo "🔨 Building native executable..."
+    mvn -B -Pnative native:compile -DskipTests
+fi
+
+APP_PID=""
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2> /dev/null || true
+    docker rm -f "$MONGO" > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+echo "🍃 Starting MongoDB..."
+docker run -d --name "$MONGO" -p 27017:27017 mongo:7 > /dev/null
+until docker exec "$MONGO" mongosh --quiet --eval "db.runCommand({ ping: 1 })" > /dev/null 2>&1; do
+    sleep 0.5
+done
+
+fail() {
+    echo "❌ $1"
+    exit 1
+}
+
+echo "🚀 Starting native executable..."
+START=$(date +%s%N)
+MONGODB_HOST=localhost "$BINARY" --server.port="$PORT" --kubernetes.client.warm-up=false > native-smoke.log 2>&1 &
+APP_PID=$!
+until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do
+    kill -0 "$APP_PID" 2> /dev/null || fail "Application exited, see native-smoke.log"
+    sleep 0.05
+done
+READY_MS=$(( ($(date +%s%N) - START) / 1000000 ))
+echo "✅ Ready in ${READY_MS} ms"
+
+# Create
+TASK_ID=$(curl -sf -X PUT "$BASE_URL" -H "Content-Type: application/json" \
+    -d '{"name":"Native Smoke Task","owner":"smoke","command":"echo native"}' \
+    | sed -E 's/.*"id":"([^"]+)".*/\1/')
+[ -n "$TASK_ID" ] || fail "Create returned no id"
+echo "✅ Created task $TASK_ID"
+
+# Read
+curl -sf "$BASE_URL?id=$TASK_ID" | grep -q '"name":"Native Smoke Task"' || fail "Read did not return the task"
+echo "✅ Read task"
+
+# Search
+curl -sf "$BASE_URL/search?name=smoke" | grep -q "$TASK_ID" || fail "Search did not find the task"
+echo "✅ Found task by name"
+
+# Delete
+curl -sf -X DELETE "$BASE_URL/$TASK_ID" > /dev/null || fail "Delete failed"
+STATUS=$(curl -s -o /dev/null -w "%{http_code}" "$BASE_URL?id=$TASK_ID")
+[ "$STATUS" = "404" ] || fail "Deleted task still readable (HTTP $STATUS)"
+echo "✅ Deleted task"
+
+RSS_KB=$(grep VmRSS "/proc/$APP_PID/status" | awk '{print $2}')
+echo "📊 Startup: ${READY_MS} ms, RSS after CRUD: $(( RSS_KB / 1024 )) MiB"
+echo "🎉 Native smoke test passed"
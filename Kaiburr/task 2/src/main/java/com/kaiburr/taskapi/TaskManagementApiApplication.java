@@ -2,11 +2,17 @@ package com.kaiburr.taskapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TaskManagementApiApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(TaskManagementApiApplication.class, args);
+        SpringApplication application = new SpringApplication(TaskManagementApiApplication.class);
+        // Record startup steps for the actuator startup endpoint
+        application.setApplicationStartup(new BufferingApplicationStartup(4096));
+        application.run(args);
     }
 }
@@ -0,0 +1,136 @@
+package com.kaiburr.taskapi.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kaiburr.taskapi.model.TaskExecution;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile})
+ * responses, selected through the Accept header; JSON stays the default.
+ *
+ * <p>The binary mappers share the application's Jackson configuration but write
+ * timestamps as epoch milliseconds instead of formatted strings, including the
+ * execution start and end times that carry a string {@code @JsonFormat} for JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    // Not beans: another ObjectMapper bean would replace Spring Boot's JSON mapper
+    static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        return builder.factory(factory)
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .featuresToDisable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .mixIn(TaskExecution.class, EpochMillisExecutionTimes.class)
+                .build();
+    }
+
+    @Configuration
+    @Profile("!reactive")
+    static class ServletBinaryFormats implements WebMvcConfigurer {
+
+        private final ObjectMapper cborObjectMapper;
+        private final ObjectMapper smileObjectMapper;
+
+        ServletBinaryFormats(Jackson2ObjectMapperBuilder builder) {
+            this.cborObjectMapper = binaryMapper(builder, new CBORFactory());
+            this.smileObjectMapper = binaryMapper(builder, new SmileFactory());
+        }
+
+        @Override
+        public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+            // Replace the defaults registered for these formats, which use a plain mapper;
+            // appending keeps JSON first for clients that accept anything
+            converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                    || converter instanceof MappingJackson2SmileHttpMessageConverter);
+            converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper));
+            converters.add(new MappingJackson2SmileHttpMessageConverter(smileObjectMapper));
+        }
+    }
+
+    @Configuration
+    @Profile("reactive")
+    static class ReactiveBinaryFormats implements WebFluxConfigurer {
+
+        private final ObjectMapper cborObjectMapper;
+        private final ObjectMapper smileObjectMapper;
+
+        ReactiveBinaryFormats(Jackson2ObjectMapperBuilder builder) {
+            this.cborObjectMapper = binaryMapper(builder, new CBORFactory());
+            this.smileObjectMapper = binaryMapper(builder, new SmileFactory());
+        }
+
+        @Override
+        public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileObjectMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileObjectMapper));
+            configurer.customCodecs().register(new Jackson2CborEncoder(cborObjectMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborObjectMapper));
+        }
+    }
+
+    /**
+     * Mix-in replacing the string format of execution times in binary formats.
+     */
+    abstract static class EpochMillisExecutionTimes {
+
+        @JsonSerialize(using = EpochMillisSerializer.class)
+        @JsonDeserialize(using = EpochMillisDeserializer.class)
+        private LocalDateTime startTime;
+
+        @JsonSerialize(using = EpochMillisSerializer.class)
+        @JsonDeserialize(using = EpochMillisDeserializer.class)
+        private LocalDateTime endTime;
+    }
+
+    // Times are stored as UTC wall-clock values, see spring.jackson.time-zone
+    static class EpochMillisSerializer extends JsonSerializer<LocalDateTime> {
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    static class EpochMillisDeserializer extends JsonDeserializer<LocalDateTime> {
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneOffset.UTC);
+            }
+            return LocalDateTime.parse(parser.getText());
+        }
+    }
+}
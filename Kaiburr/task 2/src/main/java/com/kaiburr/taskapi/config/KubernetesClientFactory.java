@@ -0,0 +1,155 @@
+package com.kaiburr.taskapi.config;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.util.ClientBuilder;
+import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.KubeConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds Kubernetes API clients for the default configuration (in-cluster or
+ * {@code ~/.kube/config}) or for a named kubeconfig context. Short
+ * create/read/delete requests and long-lived log/watch streams use separate
+ * HTTP clients, so streams can't exhaust the connection pool or dispatcher
+ * slots needed by request traffic.
+ *
+ * <p>Clients are built on first use rather than at startup, see
+ * {@link com.kaiburr.taskapi.service.ExecutionTarget#initialize()}.
+ */
+@Component
+public class KubernetesClientFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(KubernetesClientFactory.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kubernetes.kubeconfig:${user.home}/.kube/config}")
+    private String kubeconfigPath;
+
+    @Value("${kubernetes.http.request.max-idle-connections:50}")
+    private int requestMaxIdleConnections;
+
+    @Value("${kubernetes.http.request.keep-alive-seconds:300}")
+    private long requestKeepAliveSeconds;
+
+    @Value("${kubernetes.http.request.max-requests:128}")
+    private int requestMaxRequests;
+
+    @Value("${kubernetes.http.request.max-requests-per-host:64}")
+    private int requestMaxRequestsPerHost;
+
+    @Value("${kubernetes.http.request.connect-timeout-seconds:10}")
+    private long requestConnectTimeoutSeconds;
+
+    @Value("${kubernetes.http.request.read-timeout-seconds:30}")
+    private long requestReadTimeoutSeconds;
+
+    @Value("${kubernetes.http.streaming.max-idle-connections:5}")
+    private int streamingMaxIdleConnections;
+
+    @Value("${kubernetes.http.streaming.keep-alive-seconds:60}")
+    private long streamingKeepAliveSeconds;
+
+    @Value("${kubernetes.http.streaming.max-requests:256}")
+    private int streamingMaxRequests;
+
+    @Value("${kubernetes.http.streaming.max-requests-per-host:256}")
+    private int streamingMaxRequestsPerHost;
+
+    @Value("${kubernetes.http.streaming.connect-timeout-seconds:10}")
+    private long streamingConnectTimeoutSeconds;
+
+    /**
+     * Client for short API requests.
+     *
+     * @param context kubeconfig context, or null for the default configuration
+     */
+    public ApiClient requestClient(String context) {
+        return buildClient("request", context, requestMaxIdleConnections, requestKeepAliveSeconds,
+                requestMaxRequests, requestMaxRequestsPerHost, requestConnectTimeoutSeconds, requestReadTimeoutSeconds);
+    }
+
+    /**
+     * Client for log follows and watches.
+     *
+     * @param context kubeconfig context, or null for the default configuration
+     */
+    public ApiClient streamingClient(String context) {
+        // Read timeout 0 disables it: log follows and watches stay open as long as the server allows
+        return buildClient("streaming", context, streamingMaxIdleConnections, streamingKeepAliveSeconds,
+                streamingMaxRequests, streamingMaxRequestsPerHost, streamingConnectTimeoutSeconds, 0);
+    }
+
+    private ApiClient buildClient(String name, String context, int maxIdleConnections, long keepAliveSeconds,
+            int maxRequests, int maxRequestsPerHost, long connectTimeoutSeconds, long readTimeoutSeconds) {
+        ApiClient client;
+        try {
+            client = context == null ? Config.defaultClient() : contextClient(context);
+        } catch (IOException e) {
+            logger.error("Failed to initialize Kubernetes client", e);
+            throw new RuntimeException("Failed to initialize Kubernetes client", e);
+        }
+
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        // newBuilder() keeps the authentication interceptors installed by Config
+        OkHttpClient httpClient = client.getHttpClient().newBuilder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .build();
+        client.setHttpClient(httpClient);
+
+        String contextTag = context != null ? context : "default";
+        Gauge.builder("kubernetes.client.connections", connectionPool, ConnectionPool::connectionCount)
+                .tag("client", name).tag("context", contextTag)
+                .description("Open connections in the pool").register(meterRegistry);
+        Gauge.builder("kubernetes.client.connections.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                .tag("client", name).tag("context", contextTag)
+                .description("Idle connections in the pool").register(meterRegistry);
+        Gauge.builder("kubernetes.client.calls.running", dispatcher, Dispatcher::runningCallsCount)
+                .tag("client", name).tag("context", contextTag)
+                .description("Calls currently executing").register(meterRegistry);
+        Gauge.builder("kubernetes.client.calls.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .tag("client", name).tag("context", contextTag)
+                .description("Calls waiting for a dispatcher slot").register(meterRegistry);
+
+        logger.info("Kubernetes {} client for context {} initialized (pool={}, maxRequests={}, readTimeout={}s)",
+                name, contextTag, maxIdleConnections, maxRequests, readTimeoutSeconds);
+        return client;
+    }
+
+    private ApiClient contextClient(String context) throws IOException {
+        File file = new File(kubeconfigPath);
+        try (Reader reader = new FileReader(file)) {
+            KubeConfig kubeConfig = KubeConfig.loadKubeConfig(reader);
+            if (!kubeConfig.setContext(context)) {
+                throw new IOException("Context " + context + " not found in " + kubeconfigPath);
+            }
+            // Resolve certificate and token files relative to the kubeconfig
+            kubeConfig.setFile(file);
+            return ClientBuilder.kubeconfig(kubeConfig).build();
+        }
+    }
+}
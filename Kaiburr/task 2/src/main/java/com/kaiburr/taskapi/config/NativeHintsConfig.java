@@ -0,0 +1,92 @@
+package com.kaiburr.taskapi.config;
+
+import com.kaiburr.taskapi.model.ActiveExecution;
+import com.kaiburr.taskapi.model.ConcurrencyPolicy;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutionStatus;
+import com.kaiburr.taskapi.model.ExecutionSummary;
+import com.kaiburr.taskapi.model.ExecutorBackend;
+import com.kaiburr.taskapi.model.MissedRun;
+import com.kaiburr.taskapi.model.OutputBlob;
+import com.kaiburr.taskapi.model.OwnerQuota;
+import com.kaiburr.taskapi.model.OwnerRateWindow;
+import com.kaiburr.taskapi.model.PipelineEvent;
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskEvent;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import com.kaiburr.taskapi.model.TaskPage;
+import com.kaiburr.taskapi.model.TaskRetention;
+import com.kaiburr.taskapi.model.TaskSchedule;
+import com.kaiburr.taskapi.service.TaskExecutor;
+import com.kaiburr.taskapi.service.TaskExecutorService;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Reachability metadata for the native image. Only used by AOT processing; on
+ * the JVM these hints have no effect.
+ *
+ * <p>Models are bound reflectively by Jackson and by the Mongo mapping. The
+ * Kubernetes client deserializes API responses into its generated models with
+ * Gson, and a pod response can contain nearly any of them, so the whole models
+ * package is registered.
+ */
+@Configuration
+@ImportRuntimeHints({ NativeHintsConfig.KubernetesModelHints.class, NativeHintsConfig.BinaryFormatHints.class })
+@RegisterReflectionForBinding({ Task.class, TaskExecution.class, TaskSchedule.class, TaskRetention.class,
+        ConcurrencyPolicy.class, ExecutionPriority.class, TaskLease.class, TaskPage.class, ExecutionSummary.class,
+        ExecutionSummary.Granularity.class, OutputBlob.class, TaskEvent.class, OwnerQuota.class,
+        OwnerRateWindow.class, ActiveExecution.class, ExecutionStatus.class, PipelineEvent.class,
+        PipelineEvent.Status.class, ExecutorBackend.class, TaskExecutorService.ExecutorInfo.class,
+        TaskExecutor.Capability.class, MissedRun.class })
+public class NativeHintsConfig {
+
+    static class KubernetesModelHints implements RuntimeHintsRegistrar {
+
+        private static final String MODELS = "io/kubernetes/client/openapi/models/";
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            try {
+                Resource[] classes = new PathMatchingResourcePatternResolver(classLoader)
+                        .getResources("classpath*:" + MODELS + "*.class");
+                for (Resource resource : classes) {
+                    String fileName = resource.getFilename();
+                    String className = (MODELS + fileName.substring(0, fileName.length() - ".class".length()))
+                            .replace('/', '.');
+                    hints.reflection().registerType(TypeReference.of(className),
+                            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                            MemberCategory.INVOKE_PUBLIC_METHODS,
+                            MemberCategory.DECLARED_FIELDS);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list Kubernetes model classes", e);
+            }
+        }
+    }
+
+    // Jackson reads the mix-in and creates its (de)serializers reflectively
+    static class BinaryFormatHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(BinaryFormatsConfig.EpochMillisExecutionTimes.class,
+                    MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerType(BinaryFormatsConfig.EpochMillisSerializer.class,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.reflection().registerType(BinaryFormatsConfig.EpochMillisDeserializer.class,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.service.TaskExecutorService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/executors")
+@Tag(name = "Executors", description = "APIs for the backends task commands run on")
+@CrossOrigin(origins = "*")
+@Profile("!reactive")
+public class ExecutorController {
+
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
+    @GetMapping
+    @Operation(summary = "List the enabled executors", description = "Returns the backends a task can select in its executor field, with their capabilities and which one is the default")
+    @ApiResponse(responseCode = "200", description = "Enabled executors")
+    public ResponseEntity<List<TaskExecutorService.ExecutorInfo>> getExecutors() {
+        return ResponseEntity.ok(taskExecutorService.getExecutors());
+    }
+}
@@ -0,0 +1,69 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.model.PipelineEvent;
+import com.kaiburr.taskapi.service.PipelineService;
+import com.kaiburr.taskapi.service.TaskService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/tasks")
+@Tag(name = "Task Pipelines", description = "Run tasks together with the tasks they depend on")
+@CrossOrigin(origins = "*")
+@Profile("!reactive")
+public class PipelineController {
+
+    @Autowired
+    private PipelineService pipelineService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @PutMapping(path = "/{id}/pipeline", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Run a task pipeline", description = "Executes the task after everything it depends on (dependsOn), running independent tasks in parallel and skipping tasks downstream of a failure. Streams the status of every task as Server-Sent Events, ending with a pipeline.completed event")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pipeline started, status events streamed"),
+            @ApiResponse(responseCode = "400", description = "Dependencies are missing, cyclic or too many"),
+            @ApiResponse(responseCode = "404", description = "Task not found")
+    })
+    public ResponseEntity<SseEmitter> runPipeline(
+            @Parameter(description = "ID of the last task of the pipeline", required = true) @PathVariable String id) {
+
+        if (!taskService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, List<String>> graph = pipelineService.plan(id);
+
+        // No timeout: the stream ends with the pipeline
+        SseEmitter emitter = new SseEmitter(0L);
+        PipelineService.Run run = pipelineService.run(id, graph,
+                taskId -> taskService.executeTask(taskId, null),
+                new PipelineService.Listener() {
+                    @Override
+                    public void onEvent(PipelineEvent event) throws IOException {
+                        emitter.send(SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+                    }
+
+                    @Override
+                    public void onClose() {
+                        emitter.complete();
+                    }
+                });
+        emitter.onTimeout(run::cancel);
+        emitter.onError(e -> run.cancel());
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,52 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.service.ExecutionOutputStore;
+import com.kaiburr.taskapi.service.OutputStorageService;
+import com.kaiburr.taskapi.service.ReactiveTaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Same endpoints as {@link ExecutionController}, served by WebFlux when the
+ * "reactive" profile is active.
+ */
+@RestController
+@RequestMapping("/api/executions")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactiveExecutionController {
+
+    private static final MediaType TEXT_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    @Autowired
+    private ReactiveTaskService taskService;
+
+    @Autowired
+    private OutputStorageService outputStorageService;
+
+    @Autowired
+    private ExecutionOutputStore executionOutputStore;
+
+    @GetMapping("/{id}/output")
+    public Mono<ResponseEntity<?>> getExecutionOutput(@PathVariable String id) {
+        // GridFS and spill file lookups block; returning a Resource lets WebFlux answer Range requests
+        Mono<ResponseEntity<?>> stored = Mono.fromCallable(() -> executionOutputStore.load(id)
+                        .or(() -> outputStorageService.findOutputFile(id).map(FileSystemResource::new)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::justOrEmpty)
+                .map(resource -> ResponseEntity.ok().contentType(TEXT_UTF8).body(resource));
+
+        return stored.switchIfEmpty(taskService.findExecutionById(id)
+                .filter(execution -> !execution.isOutputTruncated())
+                .<ResponseEntity<?>>map(execution -> ResponseEntity.ok().contentType(TEXT_UTF8).body(execution.getOutput()))
+                .defaultIfEmpty(ResponseEntity.notFound().build()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.service.TaskExecutorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Same endpoints as {@link ExecutorController}, served by WebFlux when the
+ * "reactive" profile is active.
+ */
+@RestController
+@RequestMapping("/api/executors")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactiveExecutorController {
+
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
+    @GetMapping
+    public Flux<TaskExecutorService.ExecutorInfo> getExecutors() {
+        return Flux.fromIterable(taskExecutorService.getExecutors());
+    }
+}
@@ -0,0 +1,58 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.model.PipelineEvent;
+import com.kaiburr.taskapi.service.PipelineService;
+import com.kaiburr.taskapi.service.ReactiveTaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Same endpoint as {@link PipelineController}, served by WebFlux when the
+ * "reactive" profile is active.
+ */
+@RestController
+@RequestMapping("/api/tasks")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactivePipelineController {
+
+    @Autowired
+    private PipelineService pipelineService;
+
+    @Autowired
+    private ReactiveTaskService taskService;
+
+    @PutMapping(path = "/{id}/pipeline", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PipelineEvent>> runPipeline(@PathVariable String id) {
+        return taskService.existsById(id)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found with id: " + id)))
+                // Loading the dependencies blocks
+                .flatMap(exists -> Mono.fromCallable(() -> pipelineService.plan(id)).subscribeOn(Schedulers.boundedElastic()))
+                .flatMapMany(graph -> Flux.<ServerSentEvent<PipelineEvent>>create(sink -> {
+                    // Tasks run on virtual threads, where waiting for the reactive execution is fine
+                    PipelineService.Run run = pipelineService.run(id, graph,
+                            taskId -> taskService.executeTask(taskId, null).block(),
+                            new PipelineService.Listener() {
+                                @Override
+                                public void onEvent(PipelineEvent event) {
+                                    sink.next(ServerSentEvent.builder(event).event(event.getType()).build());
+                                }
+
+                                @Override
+                                public void onClose() {
+                                    sink.complete();
+                                }
+                            });
+                    sink.onDispose(run::cancel);
+                }));
+    }
+}
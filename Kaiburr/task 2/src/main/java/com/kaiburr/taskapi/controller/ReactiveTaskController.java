@@ -0,0 +1,155 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.exception.RateLimitExceededException;
+import com.kaiburr.taskapi.exception.TaskConcurrencyException;
+import com.kaiburr.taskapi.model.ActiveExecution;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutionSummary;
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.service.ReactiveTaskService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Same endpoints as {@link TaskController}, served by WebFlux when the
+ * "reactive" profile is active.
+ */
+@RestController
+@RequestMapping("/api/tasks")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactiveTaskController {
+
+    @Autowired
+    private ReactiveTaskService taskService;
+
+    @GetMapping
+    public Mono<ResponseEntity<?>> getTasks(
+            @RequestParam(required = false) String id,
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (owner != null && !owner.isEmpty() && (id == null || id.isEmpty())) {
+            if (limit < 1 || limit > 500) {
+                return Mono.error(new IllegalArgumentException("limit must be between 1 and 500"));
+            }
+            return taskService.findTasksByOwner(owner, name, cursor, limit).<ResponseEntity<?>>map(ResponseEntity::ok);
+        }
+
+        if (id != null && !id.isEmpty()) {
+            // Answer polling from the revision alone, without loading the task
+            Mono<ResponseEntity<?>> task = taskService.getTaskById(id)
+                    .<ResponseEntity<?>>map(found -> ResponseEntity.ok().eTag(TaskETags.of(found.getVersion())).body(found))
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+            return taskService.findVersion(id)
+                    .filter(version -> TaskETags.matches(ifNoneMatch, version))
+                    .<ResponseEntity<?>>map(version -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(TaskETags.of(version)).build())
+                    .switchIfEmpty(task);
+        }
+        return taskService.getAllTasks().collectList().<ResponseEntity<?>>map(ResponseEntity::ok);
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<Task>> createOrUpdateTask(
+            @Valid @RequestBody Task task,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Mono<Optional<Long>> currentVersion = task.getId() != null
+                ? taskService.findVersion(task.getId()).map(Optional::of).defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+        return currentVersion.flatMap(version -> Mono.fromCallable(() -> TaskETags.expectedVersion(ifMatch, version))
+                .flatMap(expectedVersion -> taskService.saveTask(task, expectedVersion))
+                .switchIfEmpty(Mono.defer(() -> taskService.saveTask(task)))
+                .map(savedTask -> (version.isPresent() ? ResponseEntity.ok() : ResponseEntity.status(HttpStatus.CREATED))
+                        .eTag(TaskETags.of(savedTask.getVersion()))
+                        .body(savedTask)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteTask(@PathVariable String id) {
+        return taskService.existsById(id).flatMap(exists -> exists
+                ? taskService.deleteTask(id).thenReturn(ResponseEntity.noContent().<Void>build())
+                : Mono.just(ResponseEntity.notFound().<Void>build()));
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<Task>>> findTasksByName(@RequestParam String name) {
+        return taskService.findTasksByName(name).collectList()
+                .map(tasks -> tasks.isEmpty()
+                        ? ResponseEntity.notFound().<List<Task>>build()
+                        : ResponseEntity.ok(tasks));
+    }
+
+    @PutMapping("/{id}/execute")
+    public Mono<ResponseEntity<?>> executeTask(@PathVariable String id,
+            @RequestParam(required = false) ExecutionPriority priority) {
+        return taskService.executeTaskCommand(id, priority)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(TaskConcurrencyException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage())))
+                .onErrorResume(e -> e instanceof RuntimeException && !(e instanceof RateLimitExceededException)
+                        && !(e instanceof IllegalArgumentException), e -> {
+                    if (e.getMessage() != null && e.getMessage().contains("Task not found")) {
+                        return Mono.just(ResponseEntity.notFound().build());
+                    }
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body("Error executing task: " + e.getMessage()));
+                });
+    }
+
+    @GetMapping("/{id}/executions")
+    public Mono<ResponseEntity<List<TaskExecution>>> getExecutions(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        return taskService.getTaskById(id)
+                .flatMap(task -> taskService.getExecutions(task,
+                        from != null ? from : LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC),
+                        to != null ? to : LocalDateTime.now()))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/executions/active")
+    public Mono<ResponseEntity<List<ActiveExecution>>> getActiveExecutions(@PathVariable String id) {
+        return taskService.existsById(id).flatMap(exists -> exists
+                ? taskService.getActiveExecutions(id).collectList().map(ResponseEntity::ok)
+                : Mono.just(ResponseEntity.notFound().<List<ActiveExecution>>build()));
+    }
+
+    @DeleteMapping("/{id}/executions/{executionId}")
+    public Mono<ResponseEntity<?>> cancelExecution(@PathVariable String id, @PathVariable String executionId) {
+        return taskService.cancelExecution(id, executionId)
+                .<ResponseEntity<?>>map(cancelled -> ResponseEntity.status(HttpStatus.ACCEPTED).body(cancelled))
+                .switchIfEmpty(taskService.findExecutionById(executionId)
+                        .<ResponseEntity<?>>map(finished -> ResponseEntity.status(HttpStatus.CONFLICT)
+                                .body("Execution has already finished: " + executionId))
+                        .defaultIfEmpty(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/{id}/summaries")
+    public Mono<ResponseEntity<List<ExecutionSummary>>> getExecutionSummaries(
+            @PathVariable String id,
+            @RequestParam(required = false) ExecutionSummary.Granularity granularity) {
+
+        return taskService.existsById(id).flatMap(exists -> exists
+                ? taskService.getExecutionSummaries(id, granularity).collectList().map(ResponseEntity::ok)
+                : Mono.just(ResponseEntity.notFound().<List<ExecutionSummary>>build()));
+    }
+}
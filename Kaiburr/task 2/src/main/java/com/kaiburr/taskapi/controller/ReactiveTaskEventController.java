@@ -0,0 +1,59 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.model.TaskEvent;
+import com.kaiburr.taskapi.service.TaskChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+/**
+ * Same endpoint as {@link TaskEventController}, served by WebFlux when the
+ * "reactive" profile is active.
+ */
+@RestController
+@RequestMapping("/api/tasks")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactiveTaskEventController {
+
+    @Autowired
+    private TaskChangeFeed taskChangeFeed;
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TaskEvent>> streamEvents(
+            @RequestParam(required = false) String taskId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        return Flux.<ServerSentEvent<TaskEvent>>create(sink -> {
+                    TaskChangeFeed.Subscription subscription = taskChangeFeed.subscribe(taskId, lastEventId, new TaskChangeFeed.Listener() {
+                        @Override
+                        public void onEvent(TaskEvent event) {
+                            sink.next(ServerSentEvent.builder(event).id(event.getId()).event(event.getType()).build());
+                        }
+
+                        @Override
+                        public void onHeartbeat() {
+                            sink.next(ServerSentEvent.<TaskEvent>builder().comment("heartbeat").build());
+                        }
+
+                        @Override
+                        public void onClose() {
+                            sink.complete();
+                        }
+                    });
+                    if (subscription == null) {
+                        sink.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Task change feed is disabled or at capacity"));
+                        return;
+                    }
+                    sink.onDispose(subscription::cancel);
+                })
+                // The sink never blocks the feed, so bound what waits for the client here
+                .onBackpressureBuffer(taskChangeFeed.getSubscriberQueueSize(), BufferOverflowStrategy.ERROR);
+    }
+}
@@ -1,6 +1,13 @@
 package com.kaiburr.taskapi.controller;
 
+import com.kaiburr.taskapi.exception.RateLimitExceededException;
+import com.kaiburr.taskapi.exception.TaskConcurrencyException;
+import com.kaiburr.taskapi.model.ActiveExecution;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutionSummary;
 import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskPage;
 import com.kaiburr.taskapi.service.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,10 +16,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,24 +33,45 @@ import java.util.Optional;
 @RequestMapping("/api/tasks")
 @Tag(name = "Task Management", description = "APIs for managing tasks and executions")
 @CrossOrigin(origins = "*")
+@Profile("!reactive")
 public class TaskController {
 
     @Autowired
     private TaskService taskService;
 
     @GetMapping
-    @Operation(summary = "Get all tasks or a specific task by ID", description = "Returns all tasks if no ID parameter is provided, or a specific task if ID is provided")
+    @Operation(summary = "Get all tasks or a specific task by ID", description = "Returns all tasks if no ID parameter is provided, or a specific task if ID is provided. With an owner parameter, returns a cursor-paginated page of that owner's tasks, optionally filtered by name")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved task(s)"),
+            @ApiResponse(responseCode = "304", description = "Task unchanged since the revision in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit"),
             @ApiResponse(responseCode = "404", description = "Task not found")
     })
     public ResponseEntity<?> getTasks(
-            @Parameter(description = "Task ID to retrieve specific task", required = false) @RequestParam(required = false) String id) {
+            @Parameter(description = "Task ID to retrieve specific task", required = false) @RequestParam(required = false) String id,
+            @Parameter(description = "Owner whose tasks to list", required = false) @RequestParam(required = false) String owner,
+            @Parameter(description = "String to search for in task names (with owner)", required = false) @RequestParam(required = false) String name,
+            @Parameter(description = "Cursor returned by the previous page (with owner)", required = false) @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of tasks per page (with owner)", required = false) @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "ETag of a previously fetched task (with id)", required = false) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (owner != null && !owner.isEmpty() && (id == null || id.isEmpty())) {
+            if (limit < 1 || limit > 500) {
+                throw new IllegalArgumentException("limit must be between 1 and 500");
+            }
+            TaskPage page = taskService.findTasksByOwner(owner, name, cursor, limit);
+            return ResponseEntity.ok(page);
+        }
 
         if (id != null && !id.isEmpty()) {
+            // Answer polling from the revision alone, without loading the task
+            Optional<Long> version = taskService.findVersion(id);
+            if (version.isPresent() && TaskETags.matches(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(TaskETags.of(version.get())).build();
+            }
             Optional<Task> task = taskService.getTaskById(id);
             if (task.isPresent()) {
-                return ResponseEntity.ok(task.get());
+                return ResponseEntity.ok().eTag(TaskETags.of(task.get().getVersion())).body(task.get());
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -48,20 +82,23 @@ public class TaskController {
     }
 
     @PutMapping
-    @Operation(summary = "Create or update a task", description = "Creates a new task or updates an existing one")
+    @Operation(summary = "Create or update a task", description = "Creates a new task or updates an existing one. With If-Match, the update only succeeds if the task is still at that revision")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Task updated successfully"),
             @ApiResponse(responseCode = "201", description = "Task created successfully"),
-            @ApiResponse(responseCode = "400", description = "Invalid task data")
+            @ApiResponse(responseCode = "400", description = "Invalid task data"),
+            @ApiResponse(responseCode = "412", description = "Task was modified since the revision in If-Match")
     })
-    public ResponseEntity<Task> createOrUpdateTask(@Valid @RequestBody Task task) {
-        boolean exists = task.getId() != null && taskService.existsById(task.getId());
-        Task savedTask = taskService.saveTask(task);
+    public ResponseEntity<Task> createOrUpdateTask(
+            @Valid @RequestBody Task task,
+            @Parameter(description = "ETag the update is based on", required = false) @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Optional<Long> currentVersion = task.getId() != null ? taskService.findVersion(task.getId()) : Optional.empty();
+        Task savedTask = taskService.saveTask(task, TaskETags.expectedVersion(ifMatch, currentVersion));
 
-        if (exists) {
-            return ResponseEntity.ok(savedTask);
+        if (currentVersion.isPresent()) {
+            return ResponseEntity.ok().eTag(TaskETags.of(savedTask.getVersion())).body(savedTask);
         } else {
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedTask);
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(TaskETags.of(savedTask.getVersion())).body(savedTask);
         }
     }
 
@@ -99,18 +136,27 @@ public class TaskController {
     }
 
     @PutMapping("/{id}/execute")
-    @Operation(summary = "Execute a task command", description = "Executes the command associated with the task and stores the execution result")
+    @Operation(summary = "Execute a task command", description = "Executes the command associated with the task and stores the execution result. Under load, executions get a slot in priority order")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Task executed successfully"),
+            @ApiResponse(responseCode = "400", description = "Task's executor is not enabled"),
             @ApiResponse(responseCode = "404", description = "Task not found"),
+            @ApiResponse(responseCode = "409", description = "Task is already being executed"),
+            @ApiResponse(responseCode = "429", description = "Owner is over its rate limit or execution share"),
             @ApiResponse(responseCode = "500", description = "Command execution failed")
     })
     public ResponseEntity<?> executeTask(
-            @Parameter(description = "ID of task to execute", required = true) @PathVariable String id) {
+            @Parameter(description = "ID of task to execute", required = true) @PathVariable String id,
+            @Parameter(description = "Priority of this execution; the task's priority if omitted", required = false) @RequestParam(required = false) ExecutionPriority priority) {
 
         try {
-            Task updatedTask = taskService.executeTaskCommand(id);
+            Task updatedTask = taskService.executeTaskCommand(id, priority);
             return ResponseEntity.ok(updatedTask);
+        } catch (TaskConcurrencyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RateLimitExceededException | IllegalArgumentException e) {
+            // Mapped by GlobalExceptionHandler: 429, or 400 for an executor that is not enabled
+            throw e;
         } catch (RuntimeException e) {
             if (e.getMessage().contains("Task not found")) {
                 return ResponseEntity.notFound().build();
@@ -122,4 +168,78 @@ public class TaskController {
                     .body("Error executing command: " + e.getMessage());
         }
     }
+
+    @GetMapping("/{id}/executions")
+    @Operation(summary = "Get executions of a task", description = "Returns executions started within a time range, including archived ones")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Executions retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Task not found")
+    })
+    public ResponseEntity<List<TaskExecution>> getExecutions(
+            @Parameter(description = "ID of task", required = true) @PathVariable String id,
+            @Parameter(description = "Earliest start time (ISO); unbounded if omitted", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest start time (ISO); now if omitted", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) throws IOException {
+
+        Optional<Task> task = taskService.getTaskById(id);
+        if (task.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(taskService.getExecutions(task.get(),
+                from != null ? from : LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC),
+                to != null ? to : LocalDateTime.now()));
+    }
+
+    @GetMapping("/{id}/executions/active")
+    @Operation(summary = "Get queued and running executions of a task", description = "Returns the executions of a task that have not finished yet, on any replica, oldest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Active executions retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Task not found")
+    })
+    public ResponseEntity<List<ActiveExecution>> getActiveExecutions(
+            @Parameter(description = "ID of task", required = true) @PathVariable String id) {
+
+        if (!taskService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(taskService.getActiveExecutions(id));
+    }
+
+    @DeleteMapping("/{id}/executions/{executionId}")
+    @Operation(summary = "Cancel an execution", description = "Cancels a queued or running execution. Its pod is deleted without a grace period and the execution is stored with status CANCELLED and the output written until then")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancellation requested"),
+            @ApiResponse(responseCode = "404", description = "Task or execution not found"),
+            @ApiResponse(responseCode = "409", description = "Execution has already finished")
+    })
+    public ResponseEntity<?> cancelExecution(
+            @Parameter(description = "ID of task", required = true) @PathVariable String id,
+            @Parameter(description = "ID of the execution to cancel", required = true) @PathVariable String executionId) {
+
+        Optional<ActiveExecution> cancelled = taskService.cancelExecution(id, executionId);
+        if (cancelled.isPresent()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(cancelled.get());
+        }
+        if (taskService.findExecutionById(executionId).isPresent()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Execution has already finished: " + executionId);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/summaries")
+    @Operation(summary = "Get execution summaries of a task", description = "Returns hourly and daily roll-ups of executions removed by the retention policy")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Summaries retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Task not found")
+    })
+    public ResponseEntity<List<ExecutionSummary>> getExecutionSummaries(
+            @Parameter(description = "ID of task", required = true) @PathVariable String id,
+            @Parameter(description = "HOURLY or DAILY; both if omitted", required = false) @RequestParam(required = false) ExecutionSummary.Granularity granularity) {
+
+        if (!taskService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(taskService.getExecutionSummaries(id, granularity));
+    }
 }
@@ -0,0 +1,66 @@
+package com.kaiburr.taskapi.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Optional;
+
+/**
+ * Strong ETags derived from the task revision, shared by the blocking and
+ * reactive controllers.
+ */
+final class TaskETags {
+
+    private TaskETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the given revision. Uses weak
+     * comparison, as required for If-None-Match.
+     */
+    static boolean matches(String ifNoneMatch, long version) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String etag = of(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Revision an update must be applied to, or null when no If-Match was sent.
+     * "*" only requires the task to exist; weak or unknown ETags never match.
+     */
+    static Long expectedVersion(String ifMatch, Optional<Long> currentVersion) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.equals("*")) {
+            return currentVersion.orElseThrow(() -> preconditionFailed(ifMatch));
+        }
+        if (currentVersion.isEmpty() || value.length() < 3 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            throw preconditionFailed(ifMatch);
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw preconditionFailed(ifMatch);
+        }
+    }
+
+    private static OptimisticLockingFailureException preconditionFailed(String ifMatch) {
+        return new OptimisticLockingFailureException("If-Match " + ifMatch + " does not match the current task");
+    }
+}
@@ -0,0 +1,67 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.model.TaskEvent;
+import com.kaiburr.taskapi.service.TaskChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/tasks")
+@Tag(name = "Task Events", description = "Server-Sent Events stream of task changes")
+@CrossOrigin(origins = "*")
+@Profile("!reactive")
+public class TaskEventController {
+
+    @Autowired
+    private TaskChangeFeed taskChangeFeed;
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream task changes", description = "Server-Sent Events for created, updated and deleted tasks and completed executions. Reconnecting with Last-Event-ID replays missed events, or sends a reset event when they are no longer available")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "503", description = "Change feed disabled or at its subscriber limit")
+    })
+    public ResponseEntity<SseEmitter> streamEvents(
+            @Parameter(description = "Only stream events of this task", required = false) @RequestParam(required = false) String taskId,
+            @Parameter(description = "Id of the last event received, sent by EventSource on reconnect", required = false) @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        // No timeout: heartbeats detect clients that went away
+        SseEmitter emitter = new SseEmitter(0L);
+        TaskChangeFeed.Subscription subscription = taskChangeFeed.subscribe(taskId, lastEventId, new TaskChangeFeed.Listener() {
+            @Override
+            public void onEvent(TaskEvent event) throws IOException {
+                SseEmitter.SseEventBuilder sse = SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON);
+                emitter.send(event.getId() != null ? sse.id(event.getId()) : sse);
+            }
+
+            @Override
+            public void onHeartbeat() throws IOException {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+
+            @Override
+            public void onClose() {
+                emitter.complete();
+            }
+        });
+        if (subscription == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,12 @@
+package com.kaiburr.taskapi.exception;
+
+/**
+ * Thrown without contacting the API server while the Kubernetes circuit
+ * breaker is open, or when the Kubernetes client could not be initialized.
+ */
+public class KubernetesUnavailableException extends RuntimeException {
+
+    public KubernetesUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.kaiburr.taskapi.exception;
+
+/**
+ * Thrown when an owner has used up its request quota, or its executions could
+ * not get a fair share of the execution slots in time.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
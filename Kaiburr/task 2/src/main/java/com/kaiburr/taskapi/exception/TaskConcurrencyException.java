@@ -0,0 +1,12 @@
+package com.kaiburr.taskapi.exception;
+
+/**
+ * Thrown when a task cannot be executed because another execution of the same
+ * task holds its lease.
+ */
+public class TaskConcurrencyException extends RuntimeException {
+
+    public TaskConcurrencyException(String message) {
+        super(message);
+    }
+}
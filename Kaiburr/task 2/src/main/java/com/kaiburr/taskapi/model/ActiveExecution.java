@@ -0,0 +1,110 @@
+package com.kaiburr.taskapi.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * An execution that is queued or running on some replica. The document is
+ * removed when the execution is stored on its task, and expires on its own if
+ * the replica dies first.
+ */
+@Document(collection = "active_executions")
+public class ActiveExecution {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String taskId;
+
+    private ExecutionStatus status;
+
+    private ExecutionPriority priority;
+
+    // Replica running the execution
+    private String replica;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS'Z'")
+    private LocalDateTime queuedAt;
+
+    private boolean cancelRequested;
+
+    @JsonIgnore
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    // Default constructor
+    public ActiveExecution() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ExecutionStatus status) {
+        this.status = status;
+    }
+
+    public ExecutionPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(ExecutionPriority priority) {
+        this.priority = priority;
+    }
+
+    public String getReplica() {
+        return replica;
+    }
+
+    public void setReplica(String replica) {
+        this.replica = replica;
+    }
+
+    public LocalDateTime getQueuedAt() {
+        return queuedAt;
+    }
+
+    public void setQueuedAt(LocalDateTime queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
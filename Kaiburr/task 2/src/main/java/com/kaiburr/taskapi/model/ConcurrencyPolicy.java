@@ -0,0 +1,14 @@
+package com.kaiburr.taskapi.model;
+
+/**
+ * Controls what happens when a task is executed while another execution of
+ * the same task is still running on any replica.
+ */
+public enum ConcurrencyPolicy {
+    /** Executions run independently, no lease is taken (default) */
+    ALLOW,
+    /** A second execution is rejected while the lease is held */
+    FORBID,
+    /** A second execution waits for the lease to be released */
+    QUEUE
+}
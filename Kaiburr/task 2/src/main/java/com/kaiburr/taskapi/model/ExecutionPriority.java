@@ -0,0 +1,17 @@
+package com.kaiburr.taskapi.model;
+
+/**
+ * Order in which waiting executions get a slot. A waiting execution is raised
+ * one level for every aging interval it has waited, so lower priorities are
+ * delayed but never starved.
+ */
+public enum ExecutionPriority {
+    /** Bulk and maintenance work */
+    LOW,
+    /** Default */
+    NORMAL,
+    /** Latency-sensitive work */
+    HIGH,
+    /** Production-critical work */
+    CRITICAL
+}
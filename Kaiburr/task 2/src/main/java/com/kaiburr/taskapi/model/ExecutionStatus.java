@@ -0,0 +1,17 @@
+package com.kaiburr.taskapi.model;
+
+/**
+ * Lifecycle of a task execution. Executions stored on a task are COMPLETED or
+ * CANCELLED; executions stored before statuses existed have none and count as
+ * COMPLETED.
+ */
+public enum ExecutionStatus {
+    /** Waiting for an execution slot */
+    QUEUED,
+    /** Its pod has been created */
+    RUNNING,
+    /** Ran to the end, successfully or not (see the exit code) */
+    COMPLETED,
+    /** Stopped on request; the output is what was written until then */
+    CANCELLED
+}
@@ -0,0 +1,150 @@
+package com.kaiburr.taskapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rolled-up statistics of the executions of one task in one hour or day.
+ *
+ * <p>Durations are kept as a histogram with power-of-two millisecond buckets
+ * (bucket {@code k} holds durations below {@code 2^k} ms), so summaries can be
+ * merged by adding counts and quantiles are accurate to a factor of two.
+ */
+@Document(collection = "execution_summaries")
+@CompoundIndex(name = "task_bucket_idx", def = "{'taskId': 1, 'granularity': 1, 'bucketStart': 1}")
+public class ExecutionSummary {
+
+    public enum Granularity {
+        HOURLY, DAILY
+    }
+
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    @Id
+    private String id;
+
+    private String taskId;
+
+    private Granularity granularity;
+
+    private Instant bucketStart;
+
+    private long count;
+
+    private long failureCount;
+
+    private long maxDurationMillis;
+
+    // Bucket index (as string, for Mongo field names) -> number of executions
+    private Map<String, Long> durationHistogram = new HashMap<>();
+
+    // Default constructor
+    public ExecutionSummary() {
+    }
+
+    public static String idFor(String taskId, Granularity granularity, Instant bucketStart) {
+        return taskId + ":" + granularity + ":" + bucketStart.toEpochMilli();
+    }
+
+    public static int histogramBucket(long durationMillis) {
+        int bucket = 64 - Long.numberOfLeadingZeros(Math.max(durationMillis, 0));
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Upper bound of the bucket containing the given quantile, in milliseconds.
+     */
+    public long quantileMillis(double quantile) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            seen += durationHistogram.getOrDefault(String.valueOf(bucket), 0L);
+            if (seen >= rank && seen > 0) {
+                return Math.min(1L << bucket, maxDurationMillis);
+            }
+        }
+        return maxDurationMillis;
+    }
+
+    public long getP50DurationMillis() {
+        return quantileMillis(0.50);
+    }
+
+    public long getP90DurationMillis() {
+        return quantileMillis(0.90);
+    }
+
+    public long getP99DurationMillis() {
+        return quantileMillis(0.99);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(Instant bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public void setFailureCount(long failureCount) {
+        this.failureCount = failureCount;
+    }
+
+    public long getMaxDurationMillis() {
+        return maxDurationMillis;
+    }
+
+    public void setMaxDurationMillis(long maxDurationMillis) {
+        this.maxDurationMillis = maxDurationMillis;
+    }
+
+    public Map<String, Long> getDurationHistogram() {
+        return durationHistogram;
+    }
+
+    public void setDurationHistogram(Map<String, Long> durationHistogram) {
+        this.durationHistogram = durationHistogram;
+    }
+}
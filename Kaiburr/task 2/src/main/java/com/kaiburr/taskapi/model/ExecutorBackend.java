@@ -0,0 +1,14 @@
+package com.kaiburr.taskapi.model;
+
+/**
+ * Where the commands of a task are run. Tasks without one use the
+ * deployment default, {@code task.executor.default}.
+ */
+public enum ExecutorBackend {
+    /** A busybox pod per execution */
+    KUBERNETES,
+    /** A shell process on the replica itself; must be enabled explicitly */
+    LOCAL,
+    /** Simulated, deterministic output without running anything; for benchmarks and tests */
+    IN_MEMORY
+}
@@ -0,0 +1,114 @@
+package com.kaiburr.taskapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A scheduled run that fired but could not be executed. Kept for
+ * {@code task.scheduler.missed-retention-days}; the schedule itself has
+ * already moved on to its next run.
+ */
+@Document(collection = "missed_runs")
+public class MissedRun {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String taskId;
+
+    private Instant dueAt;
+
+    private Instant missedAt;
+
+    // Replica the run fired on
+    private String replica;
+
+    private String error;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    // Default constructor
+    public MissedRun() {
+    }
+
+    // Constructor
+    public MissedRun(String taskId, Instant dueAt, String replica, String error) {
+        this.taskId = taskId;
+        this.dueAt = dueAt;
+        this.missedAt = Instant.now();
+        this.replica = replica;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(Instant dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public Instant getMissedAt() {
+        return missedAt;
+    }
+
+    public void setMissedAt(Instant missedAt) {
+        this.missedAt = missedAt;
+    }
+
+    public String getReplica() {
+        return replica;
+    }
+
+    public void setReplica(String replica) {
+        this.replica = replica;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "MissedRun{" +
+                "taskId='" + taskId + '\'' +
+                ", dueAt=" + dueAt +
+                ", replica='" + replica + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
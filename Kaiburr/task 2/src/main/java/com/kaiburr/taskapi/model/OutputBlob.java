@@ -0,0 +1,68 @@
+package com.kaiburr.taskapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Execution output stored once and referenced by its SHA-256 hash.
+ */
+@Document(collection = "output_blobs")
+public class OutputBlob {
+
+    @Id
+    private String hash;
+
+    private String content;
+
+    private Instant createdAt;
+
+    // Last time an execution was stored referencing this blob
+    private Instant lastUsedAt;
+
+    // Default constructor
+    public OutputBlob() {
+    }
+
+    // Constructor
+    public OutputBlob(String hash, String content) {
+        this.hash = hash;
+        this.content = content;
+        this.createdAt = Instant.now();
+        this.lastUsedAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(Instant lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+}
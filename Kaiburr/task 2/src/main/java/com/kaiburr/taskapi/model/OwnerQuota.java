@@ -0,0 +1,85 @@
+package com.kaiburr.taskapi.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Request limits and execution share of one owner. {@code rate} and
+ * {@code burst} bound the owner's write and execute requests across all
+ * replicas; {@code weight} is the owner's share of execution slots when they
+ * are contended. Unset values fall back to the global defaults.
+ */
+@Document(collection = "owner_quotas")
+public class OwnerQuota {
+
+    @Id
+    private String owner;
+
+    // Sustained requests per second
+    @Positive(message = "Quota rate must be positive")
+    private Double rate;
+
+    // Requests that may be made at once after a quiet period
+    @Min(value = 1, message = "Quota burst must be at least 1")
+    private Integer burst;
+
+    @Min(value = 1, message = "Quota weight must be at least 1")
+    private Integer weight;
+
+    // Default constructor
+    public OwnerQuota() {
+    }
+
+    // Constructor
+    public OwnerQuota(String owner, Double rate, Integer burst, Integer weight) {
+        this.owner = owner;
+        this.rate = rate;
+        this.burst = burst;
+        this.weight = weight;
+    }
+
+    // Getters and Setters
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Double getRate() {
+        return rate;
+    }
+
+    public void setRate(Double rate) {
+        this.rate = rate;
+    }
+
+    public Integer getBurst() {
+        return burst;
+    }
+
+    public void setBurst(Integer burst) {
+        this.burst = burst;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public String toString() {
+        return "OwnerQuota{" +
+                "owner='" + owner + '\'' +
+                ", rate=" + rate +
+                ", burst=" + burst +
+                ", weight=" + weight +
+                '}';
+    }
+}
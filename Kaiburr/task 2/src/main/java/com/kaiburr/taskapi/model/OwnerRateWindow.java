@@ -0,0 +1,52 @@
+package com.kaiburr.taskapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Requests granted to one owner in one rate limit window, across all replicas.
+ * The id is the owner and the window number; documents expire on their own.
+ */
+@Document(collection = "owner_rate_windows")
+public class OwnerRateWindow {
+
+    @Id
+    private String id;
+
+    private long used;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    // Default constructor
+    public OwnerRateWindow() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getUsed() {
+        return used;
+    }
+
+    public void setUsed(long used) {
+        this.used = used;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,121 @@
+package com.kaiburr.taskapi.model;
+
+import java.util.List;
+
+/**
+ * Progress of a pipeline run, as delivered by the
+ * {@code /api/tasks/{id}/pipeline} stream: a {@code node} event whenever a
+ * task of the pipeline changes status, and one {@code pipeline.completed}
+ * event at the end.
+ */
+public class PipelineEvent {
+
+    public static final String NODE = "node";
+    public static final String PIPELINE_COMPLETED = "pipeline.completed";
+
+    public enum Status {
+        /** Waiting for its dependencies */
+        PENDING,
+        RUNNING,
+        /** Execution completed with exit code 0 */
+        SUCCEEDED,
+        /** Execution failed, was cancelled or could not be started */
+        FAILED,
+        /** Not run because a dependency failed */
+        SKIPPED
+    }
+
+    private String type;
+
+    // The node's task, or the pipeline's final task for pipeline.completed
+    private String taskId;
+
+    private Status status;
+
+    private List<String> dependsOn;
+
+    private String executionId;
+
+    private Integer exitCode;
+
+    private String message;
+
+    // Default constructor
+    public PipelineEvent() {
+    }
+
+    // Constructor
+    public PipelineEvent(String type, String taskId, Status status) {
+        this.type = type;
+        this.taskId = taskId;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(Integer exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineEvent{" +
+                "type='" + type + '\'' +
+                ", taskId='" + taskId + '\'' +
+                ", status=" + status +
+                ", executionId='" + executionId + '\'' +
+                ", exitCode=" + exitCode +
+                '}';
+    }
+}
@@ -1,14 +1,23 @@
 package com.kaiburr.taskapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "tasks")
+@CompoundIndex(name = "owner_name_idx", def = "{'owner': 1, 'name': 1}")
+@CompoundIndex(name = "schedule_due_idx", def = "{'schedulePartition': 1, 'nextRunAt': 1}", sparse = true)
+@CompoundIndex(name = "output_hash_idx", def = "{'taskExecutions.outputHash': 1}", sparse = true)
+@CompoundIndex(name = "output_base_hash_idx", def = "{'taskExecutions.outputBaseHash': 1}", sparse = true)
 public class Task {
 
     @Id
@@ -26,6 +35,38 @@ public class Task {
 
     private List<TaskExecution> taskExecutions;
 
+    private ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.ALLOW;
+
+    private ExecutionPriority priority = ExecutionPriority.NORMAL;
+
+    // Backend the task runs on; null uses the deployment default
+    private ExecutorBackend executor;
+
+    // Ids of the tasks that must succeed before this one runs in a pipeline
+    private List<String> dependsOn;
+
+    @Valid
+    private TaskSchedule schedule;
+
+    @Valid
+    private TaskRetention retention;
+
+    // Next due time of the schedule, maintained by the scheduler
+    private Instant nextRunAt;
+
+    // Scheduler partition that owns this task's schedule
+    @JsonIgnore
+    private Integer schedulePartition;
+
+    // Highest lease fencing token that has written an execution to this task
+    @JsonIgnore
+    private Long lastFencingToken;
+
+    // Revision of the document, bumped by every write; exposed as the ETag
+    @Version
+    @JsonIgnore
+    private Long version;
+
     // Default constructor
     public Task() {
         this.taskExecutions = new ArrayList<>();
@@ -81,6 +122,86 @@ public class Task {
         this.taskExecutions = taskExecutions;
     }
 
+    public ConcurrencyPolicy getConcurrencyPolicy() {
+        return concurrencyPolicy;
+    }
+
+    public void setConcurrencyPolicy(ConcurrencyPolicy concurrencyPolicy) {
+        this.concurrencyPolicy = concurrencyPolicy;
+    }
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+
+    public ExecutionPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(ExecutionPriority priority) {
+        this.priority = priority;
+    }
+
+    public ExecutorBackend getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorBackend executor) {
+        this.executor = executor;
+    }
+
+    public TaskSchedule getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(TaskSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    public TaskRetention getRetention() {
+        return retention;
+    }
+
+    public void setRetention(TaskRetention retention) {
+        this.retention = retention;
+    }
+
+    public Instant getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public void setNextRunAt(Instant nextRunAt) {
+        this.nextRunAt = nextRunAt;
+    }
+
+    public Integer getSchedulePartition() {
+        return schedulePartition;
+    }
+
+    public void setSchedulePartition(Integer schedulePartition) {
+        this.schedulePartition = schedulePartition;
+    }
+
+    public Long getLastFencingToken() {
+        return lastFencingToken;
+    }
+
+    public void setLastFencingToken(Long lastFencingToken) {
+        this.lastFencingToken = lastFencingToken;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void addTaskExecution(TaskExecution execution) {
         if (this.taskExecutions == null) {
             this.taskExecutions = new ArrayList<>();
@@ -95,6 +216,12 @@ public class Task {
                 ", name='" + name + '\'' +
                 ", owner='" + owner + '\'' +
                 ", command='" + command + '\'' +
+                ", concurrencyPolicy=" + concurrencyPolicy +
+                ", priority=" + priority +
+                ", executor=" + executor +
+                ", dependsOn=" + dependsOn +
+                ", schedule=" + schedule +
+                ", retention=" + retention +
                 ", taskExecutions=" + taskExecutions +
                 '}';
     }
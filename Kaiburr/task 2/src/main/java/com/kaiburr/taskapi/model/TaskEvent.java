@@ -0,0 +1,87 @@
+package com.kaiburr.taskapi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A change to a task, as delivered by the {@code /api/tasks/events} stream.
+ *
+ * <p>Events carry the task id and revision rather than the task itself;
+ * clients fetch the task (with If-None-Match) when they need its contents.
+ * Completed executions are included without their output.
+ */
+public class TaskEvent {
+
+    public static final String TASK_CREATED = "task.created";
+    public static final String TASK_UPDATED = "task.updated";
+    public static final String TASK_DELETED = "task.deleted";
+    public static final String EXECUTION_COMPLETED = "execution.completed";
+    // Events were missed (unknown Last-Event-ID or lost change stream history); refetch state
+    public static final String RESET = "reset";
+
+    // Change stream resume token, used as the SSE event id
+    private String id;
+
+    private String type;
+
+    private String taskId;
+
+    private Long version;
+
+    private List<TaskExecution> executions;
+
+    // Default constructor
+    public TaskEvent() {
+        this.executions = new ArrayList<>();
+    }
+
+    // Constructor
+    public TaskEvent(String id, String type, String taskId, Long version) {
+        this.id = id;
+        this.type = type;
+        this.taskId = taskId;
+        this.version = version;
+        this.executions = new ArrayList<>();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public List<TaskExecution> getExecutions() {
+        return executions;
+    }
+
+    public void setExecutions(List<TaskExecution> executions) {
+        this.executions = executions;
+    }
+}
@@ -1,12 +1,15 @@
 package com.kaiburr.taskapi.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 
 import java.time.LocalDateTime;
 
 public class TaskExecution {
 
+    private String id;
+
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS'Z'")
     private LocalDateTime startTime;
 
@@ -15,6 +18,34 @@ public class TaskExecution {
 
     private String output;
 
+    // COMPLETED or CANCELLED; null for executions stored before statuses existed
+    private ExecutionStatus status;
+
+    // Backend that ran the command; null for executions stored before there were several
+    private ExecutorBackend executor;
+
+    // Exit code of the task container, null when it never terminated (error or timeout)
+    private Integer exitCode;
+
+    // Size of the full output; output holds only its head and tail when outputTruncated is set
+    private long outputBytes;
+
+    private boolean outputTruncated;
+
+    // Stored output references: either the hash of a whole output blob, or a delta
+    // against a base blob. Output is rebuilt from them when the task is read.
+    @JsonIgnore
+    private String outputHash;
+
+    @JsonIgnore
+    private String outputBaseHash;
+
+    @JsonIgnore
+    private String outputDelta;
+
+    // GridFS file holding the full output when it was too large to store inline
+    private String outputFileId;
+
     // Default constructor
     public TaskExecution() {
     }
@@ -26,7 +57,32 @@ public class TaskExecution {
         this.output = output;
     }
 
+    // Copy constructor
+    public TaskExecution(TaskExecution other) {
+        this.id = other.id;
+        this.startTime = other.startTime;
+        this.endTime = other.endTime;
+        this.output = other.output;
+        this.status = other.status;
+        this.executor = other.executor;
+        this.exitCode = other.exitCode;
+        this.outputBytes = other.outputBytes;
+        this.outputTruncated = other.outputTruncated;
+        this.outputHash = other.outputHash;
+        this.outputBaseHash = other.outputBaseHash;
+        this.outputDelta = other.outputDelta;
+        this.outputFileId = other.outputFileId;
+    }
+
     // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public LocalDateTime getStartTime() {
         return startTime;
     }
@@ -51,12 +107,89 @@ public class TaskExecution {
         this.output = output;
     }
 
+    public ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ExecutionStatus status) {
+        this.status = status;
+    }
+
+    public ExecutorBackend getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorBackend executor) {
+        this.executor = executor;
+    }
+
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(Integer exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    public boolean isOutputTruncated() {
+        return outputTruncated;
+    }
+
+    public void setOutputTruncated(boolean outputTruncated) {
+        this.outputTruncated = outputTruncated;
+    }
+
+    public String getOutputHash() {
+        return outputHash;
+    }
+
+    public void setOutputHash(String outputHash) {
+        this.outputHash = outputHash;
+    }
+
+    public String getOutputBaseHash() {
+        return outputBaseHash;
+    }
+
+    public void setOutputBaseHash(String outputBaseHash) {
+        this.outputBaseHash = outputBaseHash;
+    }
+
+    public String getOutputDelta() {
+        return outputDelta;
+    }
+
+    public void setOutputDelta(String outputDelta) {
+        this.outputDelta = outputDelta;
+    }
+
+    public String getOutputFileId() {
+        return outputFileId;
+    }
+
+    public void setOutputFileId(String outputFileId) {
+        this.outputFileId = outputFileId;
+    }
+
     @Override
     public String toString() {
         return "TaskExecution{" +
-                "startTime=" + startTime +
+                "id='" + id + '\'' +
+                ", startTime=" + startTime +
                 ", endTime=" + endTime +
                 ", output='" + output + '\'' +
+                ", status=" + status +
+                ", executor=" + executor +
+                ", exitCode=" + exitCode +
+                ", outputBytes=" + outputBytes +
                 '}';
     }
 }
@@ -0,0 +1,70 @@
+package com.kaiburr.taskapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Per-task execution lease shared by all replicas. The document id is the task
+ * id, so there is at most one lease per task.
+ */
+@Document(collection = "task_leases")
+public class TaskLease {
+
+    @Id
+    private String taskId;
+
+    private String holder;
+
+    private long fencingToken;
+
+    private Instant expiresAt;
+
+    // Default constructor
+    public TaskLease() {
+    }
+
+    // Getters and Setters
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    public void setHolder(String holder) {
+        this.holder = holder;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskLease{" +
+                "taskId='" + taskId + '\'' +
+                ", holder='" + holder + '\'' +
+                ", fencingToken=" + fencingToken +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
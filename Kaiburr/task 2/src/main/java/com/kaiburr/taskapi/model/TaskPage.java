@@ -0,0 +1,41 @@
+package com.kaiburr.taskapi.model;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated task listing. {@code nextCursor} is null on
+ * the last page.
+ */
+public class TaskPage {
+
+    private List<Task> items;
+
+    private String nextCursor;
+
+    // Default constructor
+    public TaskPage() {
+    }
+
+    // Constructor
+    public TaskPage(List<Task> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Task> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Task> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
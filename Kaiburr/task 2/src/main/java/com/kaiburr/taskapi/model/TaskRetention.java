@@ -0,0 +1,53 @@
+package com.kaiburr.taskapi.model;
+
+import jakarta.validation.constraints.Min;
+
+/**
+ * How many executions of a task are kept verbatim. An execution is kept if it
+ * is among the last {@code keepLast} executions or newer than {@code keepDays}
+ * days; older ones are rolled up into {@link ExecutionSummary} records. Unset
+ * values fall back to the global defaults.
+ */
+public class TaskRetention {
+
+    @Min(value = 1, message = "Retention keepLast must be at least 1")
+    private Integer keepLast;
+
+    @Min(value = 1, message = "Retention keepDays must be at least 1")
+    private Integer keepDays;
+
+    // Default constructor
+    public TaskRetention() {
+    }
+
+    // Constructor
+    public TaskRetention(Integer keepLast, Integer keepDays) {
+        this.keepLast = keepLast;
+        this.keepDays = keepDays;
+    }
+
+    // Getters and Setters
+    public Integer getKeepLast() {
+        return keepLast;
+    }
+
+    public void setKeepLast(Integer keepLast) {
+        this.keepLast = keepLast;
+    }
+
+    public Integer getKeepDays() {
+        return keepDays;
+    }
+
+    public void setKeepDays(Integer keepDays) {
+        this.keepDays = keepDays;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskRetention{" +
+                "keepLast=" + keepLast +
+                ", keepDays=" + keepDays +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package com.kaiburr.taskapi.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Recurring execution schedule of a task. The cron expression uses the Spring
+ * six-field format (second minute hour day month weekday) evaluated in UTC.
+ */
+public class TaskSchedule {
+
+    @NotBlank(message = "Schedule cron expression is required")
+    private String cron;
+
+    // Random delay added to every run so schedules sharing a cron don't fire together
+    @Min(value = 0, message = "Schedule jitter must not be negative")
+    private long jitterSeconds;
+
+    private boolean enabled = true;
+
+    // Default constructor
+    public TaskSchedule() {
+    }
+
+    // Constructor
+    public TaskSchedule(String cron, long jitterSeconds) {
+        this.cron = cron;
+        this.jitterSeconds = jitterSeconds;
+    }
+
+    /**
+     * Next due time strictly after the given instant, including jitter.
+     * Throws IllegalArgumentException if the cron expression is invalid.
+     */
+    public Instant nextRunAfter(Instant after) {
+        ZonedDateTime next = CronExpression.parse(cron).next(after.atZone(ZoneOffset.UTC));
+        if (next == null) {
+            return null;
+        }
+        long jitterMillis = jitterSeconds > 0
+                ? ThreadLocalRandom.current().nextLong(jitterSeconds * 1000)
+                : 0;
+        return next.toInstant().plusMillis(jitterMillis);
+    }
+
+    // Getters and Setters
+    public String getCron() {
+        return cron;
+    }
+
+    public void setCron(String cron) {
+        this.cron = cron;
+    }
+
+    public long getJitterSeconds() {
+        return jitterSeconds;
+    }
+
+    public void setJitterSeconds(long jitterSeconds) {
+        this.jitterSeconds = jitterSeconds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskSchedule{" +
+                "cron='" + cron + '\'' +
+                ", jitterSeconds=" + jitterSeconds +
+                ", enabled=" + enabled +
+                '}';
+    }
+}
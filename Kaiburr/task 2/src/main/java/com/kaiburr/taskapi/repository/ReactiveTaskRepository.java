@@ -0,0 +1,21 @@
+package com.kaiburr.taskapi.repository;
+
+import com.kaiburr.taskapi.model.Task;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link TaskRepository}, used by the reactive API.
+ */
+@Repository
+public interface ReactiveTaskRepository extends ReactiveMongoRepository<Task, String> {
+
+    @Query("{'name': {$regex: ?0, $options: 'i'}}")
+    Flux<Task> findByNameContainingIgnoreCase(String name);
+
+    @Query("{'taskExecutions.id': ?0}")
+    Mono<Task> findByExecutionId(String executionId);
+}
@@ -0,0 +1,13 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+
+/**
+ * A task after one of its executions was stored, with that execution.
+ *
+ * @param task      the updated task
+ * @param execution the execution that was added to it
+ */
+public record ExecutedTask(Task task, TaskExecution execution) {
+}
@@ -0,0 +1,481 @@
+package com.kaiburr.taskapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kaiburr.taskapi.model.TaskExecution;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for executions that have left the task document.
+ *
+ * <p>Executions are written to one append-only segment file per UTC day
+ * ({@code yyyy-MM-dd.seg}), and whole days are dropped after the retention. Each append adds a gzip block of JSON lines holding
+ * one task's executions, and a line in the segment's sparse index
+ * ({@code yyyy-MM-dd.idx}) with the block's task, time range and position.
+ * Reads consult the index and inflate only the matching blocks from a
+ * memory-mapped view of the segment.
+ *
+ * <p>Segments are only rewritten when a task is deleted, under the write lock,
+ * so readers never see an index that doesn't match its segment. The directory
+ * is local state that only one replica may use: a lock file is held while the
+ * archive is enabled, and a second replica sharing the directory fails to start.
+ */
+@Service
+public class ExecutionArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionArchive.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String REWRITE_SUFFIX = ".new";
+    private static final String LOCK_FILE = "archive.lock";
+
+    // Zone of the day partitions and of their retention
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    private final ObjectMapper objectMapper;
+    private final Path archiveDirectory;
+    private final boolean enabled;
+    private final int keepDays;
+
+    // Parsed sparse indexes, reloaded when the index file has grown
+    private final Map<LocalDate, SegmentIndex> indexes = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Held open while enabled; its lock keeps other replicas out of the directory
+    private FileChannel lockChannel;
+
+    public ExecutionArchive(
+            ObjectMapper objectMapper,
+            @Value("${task.archive.dir:${java.io.tmpdir}/task-archive}") String archiveDirectory,
+            @Value("${task.archive.enabled:false}") boolean enabled,
+            @Value("${task.archive.keep-days:365}") int keepDays) {
+        this.objectMapper = objectMapper;
+        this.archiveDirectory = Paths.get(archiveDirectory);
+        this.enabled = enabled;
+        this.keepDays = keepDays;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append executions of a task, partitioned by the day they started. Blocks
+     * are forced to disk before they are indexed, so a crash leaves at most
+     * unindexed bytes that readers never see.
+     */
+    public void append(String taskId, List<TaskExecution> executions) throws IOException {
+        // Blocks are indexed by their first and last start, so each is kept in start order
+        Map<LocalDate, List<TaskExecution>> byDay = new TreeMap<>();
+        for (TaskExecution execution : executions.stream()
+                .sorted(Comparator.comparing(TaskExecution::getStartTime)).toList()) {
+            byDay.computeIfAbsent(dayOf(execution.getStartTime()), day -> new ArrayList<>()).add(execution);
+        }
+
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(archiveDirectory);
+            for (Map.Entry<LocalDate, List<TaskExecution>> day : byDay.entrySet()) {
+                appendBlock(day.getKey(), taskId, day.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendBlock(LocalDate day, String taskId, List<TaskExecution> block) throws IOException {
+        byte[] compressed = compress(block);
+
+        long offset;
+        try (FileChannel segment = FileChannel.open(segmentFile(day),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            offset = segment.size();
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining()) {
+                segment.write(buffer, offset + buffer.position());
+            }
+            segment.force(false);
+        }
+
+        IndexEntry entry = new IndexEntry(taskId,
+                epochMillis(block.get(0).getStartTime()),
+                epochMillis(block.get(block.size() - 1).getStartTime()),
+                offset, compressed.length, block.size());
+        Files.writeString(indexFile(day), entry.format() + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Remove every archived execution of a deleted task. Each day holding
+     * blocks of the task is rewritten without them into new files that replace
+     * the old ones.
+     */
+    public void delete(String taskId) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (LocalDate day : segmentDays()) {
+                List<IndexEntry> entries = index(day).entries();
+                if (entries.stream().noneMatch(entry -> entry.taskId().equals(taskId))) {
+                    continue;
+                }
+                rewriteWithout(day, entries, taskId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rewriteWithout(LocalDate day, List<IndexEntry> entries, String taskId) throws IOException {
+        Path segmentCopy = rewriteFile(day, SEGMENT_SUFFIX);
+        Path indexCopy = archiveDirectory.resolve(day + INDEX_SUFFIX + ".tmp");
+        StringBuilder index = new StringBuilder();
+
+        try (FileChannel source = FileChannel.open(segmentFile(day), StandardOpenOption.READ);
+                FileChannel target = FileChannel.open(segmentCopy, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (IndexEntry entry : entries) {
+                if (entry.taskId().equals(taskId)) {
+                    continue;
+                }
+                long offset = target.position();
+                long copied = 0;
+                while (copied < entry.length()) {
+                    copied += source.transferTo(entry.offset() + copied, entry.length() - copied, target);
+                }
+                target.position(offset + entry.length());
+                index.append(new IndexEntry(entry.taskId(), entry.firstStart(), entry.lastStart(),
+                        offset, entry.length(), entry.count()).format()).append('\n');
+            }
+            target.force(false);
+        }
+        try (FileChannel target = FileChannel.open(indexCopy, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            target.write(ByteBuffer.wrap(index.toString().getBytes(StandardCharsets.UTF_8)));
+            target.force(false);
+        }
+
+        // Renaming the new index into place commits the rewrite; recover() finishes it after a crash
+        Files.move(indexCopy, rewriteFile(day, INDEX_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        completeRewrite(day);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(archiveDirectory);
+        lockChannel = FileChannel.open(archiveDirectory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (lockChannel.tryLock() == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Execution archive " + archiveDirectory
+                    + " is in use by another replica; the archive supports a single replica");
+        }
+        recover();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (lockChannel != null) {
+            lockChannel.close();
+        }
+    }
+
+    /**
+     * Finish rewrites interrupted by a crash: committed ones are moved into
+     * place, the others are discarded and leave the old files untouched.
+     */
+    private void recover() {
+        if (!Files.isDirectory(archiveDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(INDEX_SUFFIX + REWRITE_SUFFIX)) {
+                    completeRewrite(LocalDate.parse(name.substring(0, name.indexOf('.'))));
+                } else if (name.endsWith(INDEX_SUFFIX + ".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            for (LocalDate day : segmentDays()) {
+                if (!Files.exists(rewriteFile(day, INDEX_SUFFIX))) {
+                    Files.deleteIfExists(rewriteFile(day, SEGMENT_SUFFIX));
+                }
+            }
+        } catch (IOException | DateTimeParseException e) {
+            logger.warn("Failed to recover archive rewrites: {}", e.getMessage());
+        }
+    }
+
+    private void completeRewrite(LocalDate day) throws IOException {
+        indexes.remove(day);
+        Path segmentCopy = rewriteFile(day, SEGMENT_SUFFIX);
+        Path indexCopy = rewriteFile(day, INDEX_SUFFIX);
+        if (Files.size(indexCopy) == 0) {
+            // Nothing of other tasks was left in the day
+            Files.deleteIfExists(indexFile(day));
+            Files.deleteIfExists(segmentFile(day));
+            Files.deleteIfExists(segmentCopy);
+            Files.delete(indexCopy);
+            return;
+        }
+        if (Files.exists(segmentCopy)) {
+            Files.move(segmentCopy, segmentFile(day), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(indexCopy, indexFile(day), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Archived executions of a task that started within [from, to], oldest first.
+     */
+    public List<TaskExecution> read(String taskId, LocalDateTime from, LocalDateTime to) throws IOException {
+        lock.readLock().lock();
+        try {
+            return readLocked(taskId, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TaskExecution> readLocked(String taskId, LocalDateTime from, LocalDateTime to) throws IOException {
+        List<TaskExecution> executions = new ArrayList<>();
+        long fromMillis = epochMillis(from);
+        long toMillis = epochMillis(to);
+
+        for (LocalDate day : segmentDays()) {
+            if (day.isBefore(dayOf(from)) || day.isAfter(dayOf(to))) {
+                continue;
+            }
+            List<IndexEntry> blocks = index(day).entries().stream()
+                    .filter(entry -> entry.taskId().equals(taskId)
+                            && entry.lastStart() >= fromMillis && entry.firstStart() <= toMillis)
+                    .toList();
+            if (blocks.isEmpty()) {
+                continue;
+            }
+
+            try (FileChannel segment = FileChannel.open(segmentFile(day), StandardOpenOption.READ)) {
+                for (IndexEntry block : blocks) {
+                    MappedByteBuffer mapped = segment.map(FileChannel.MapMode.READ_ONLY, block.offset(), block.length());
+                    for (TaskExecution execution : decompress(mapped)) {
+                        long start = epochMillis(execution.getStartTime());
+                        if (start >= fromMillis && start <= toMillis) {
+                            executions.add(execution);
+                        }
+                    }
+                }
+            }
+        }
+        executions.sort(Comparator.comparing(TaskExecution::getStartTime));
+        return executions;
+    }
+
+    /**
+     * Drop whole segments once they are older than the archive retention.
+     */
+    @Scheduled(fixedDelayString = "${task.archive.cleanup-interval-millis:86400000}")
+    public void deleteExpiredSegments() {
+        if (!enabled || !Files.isDirectory(archiveDirectory)) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now(ZONE).minusDays(keepDays);
+        lock.writeLock().lock();
+        try {
+            for (LocalDate day : segmentDays()) {
+                if (day.isBefore(cutoff)) {
+                    try {
+                        Files.deleteIfExists(indexFile(day));
+                        Files.deleteIfExists(segmentFile(day));
+                        indexes.remove(day);
+                    } catch (IOException e) {
+                        logger.warn("Failed to delete archive segment {}: {}", day, e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private byte[] compress(List<TaskExecution> executions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (TaskExecution execution : executions) {
+                writer.write(objectMapper.writeValueAsString(execution));
+                writer.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<TaskExecution> decompress(ByteBuffer block) throws IOException {
+        List<TaskExecution> executions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteBufferInputStream(block)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                executions.add(objectMapper.readValue(line, TaskExecution.class));
+            }
+        }
+        return executions;
+    }
+
+    private SegmentIndex index(LocalDate day) throws IOException {
+        Path file = indexFile(day);
+        long size = Files.isRegularFile(file) ? Files.size(file) : 0;
+        SegmentIndex cached = indexes.get(day);
+        if (cached != null && cached.size() == size) {
+            return cached;
+        }
+
+        List<IndexEntry> entries = new ArrayList<>();
+        long segmentSize = Files.isRegularFile(segmentFile(day)) ? Files.size(segmentFile(day)) : 0;
+        if (size > 0) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                IndexEntry entry = IndexEntry.parse(line);
+                // Skip torn lines and entries pointing past the end of the segment
+                if (entry != null && entry.offset() + entry.length() <= segmentSize) {
+                    entries.add(entry);
+                }
+            }
+        }
+        SegmentIndex index = new SegmentIndex(size, entries);
+        indexes.put(day, index);
+        return index;
+    }
+
+    private List<LocalDate> segmentDays() {
+        if (!Files.isDirectory(archiveDirectory)) {
+            return List.of();
+        }
+        List<LocalDate> days = new ArrayList<>();
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            days.add(LocalDate.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (DateTimeParseException e) {
+                            // Not a segment of ours
+                        }
+                    });
+        } catch (IOException e) {
+            logger.warn("Failed to list archive segments: {}", e.getMessage());
+        }
+        days.sort(null);
+        return days;
+    }
+
+    private Path segmentFile(LocalDate day) {
+        return archiveDirectory.resolve(day + SEGMENT_SUFFIX);
+    }
+
+    private Path indexFile(LocalDate day) {
+        return archiveDirectory.resolve(day + INDEX_SUFFIX);
+    }
+
+    private Path rewriteFile(LocalDate day, String suffix) {
+        return archiveDirectory.resolve(day + suffix + REWRITE_SUFFIX);
+    }
+
+    // Start times are local times of the replica, as the Mongo converter stores them
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDate dayOf(LocalDateTime time) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis(time)), ZONE);
+    }
+
+    private record SegmentIndex(long size, List<IndexEntry> entries) {
+    }
+
+    private record IndexEntry(String taskId, long firstStart, long lastStart, long offset, int length, int count) {
+
+        String format() {
+            return String.join("\t", taskId, Long.toString(firstStart), Long.toString(lastStart),
+                    Long.toString(offset), Integer.toString(length), Integer.toString(count));
+        }
+
+        static IndexEntry parse(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 6) {
+                return null;
+            }
+            try {
+                return new IndexEntry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
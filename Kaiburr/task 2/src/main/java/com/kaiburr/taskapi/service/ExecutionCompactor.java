@@ -0,0 +1,342 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutionSummary;
+import com.kaiburr.taskapi.model.ExecutionSummary.Granularity;
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies execution retention in the background. Executions outside a task's
+ * retention window are rolled up into hourly {@link ExecutionSummary} records
+ * and removed from the task; hourly summaries are later merged into daily ones.
+ * When the {@link ExecutionArchive} is enabled, the full executions are written
+ * to it before they are removed.
+ *
+ * <p>Each run handles a small batch of tasks with a pause between tasks, on a
+ * thread of its own, and only one replica compacts at a time (guarded by a
+ * lease), so compaction never competes noticeably with foreground traffic.
+ */
+@Service
+public class ExecutionCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionCompactor.class);
+
+    private static final String LEASE_ID = "execution-compactor";
+
+    // Stored name of TaskExecution.id: the converter writes an id property as _id, embedded or not
+    private static final String EXECUTION_ID = "_id";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private ExecutionOutputStore executionOutputStore;
+
+    @Autowired
+    private ExecutionArchive executionArchive;
+
+    @Autowired
+    private OutputDedupService outputDedupService;
+
+    @Value("${task.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${task.retention.keep-last:100}")
+    private int defaultKeepLast;
+
+    @Value("${task.retention.keep-days:30}")
+    private int defaultKeepDays;
+
+    @Value("${task.retention.batch-size:20}")
+    private int batchSize;
+
+    @Value("${task.retention.max-executions-per-task:500}")
+    private int maxExecutionsPerTask;
+
+    @Value("${task.retention.pause-millis:50}")
+    private long pauseMillis;
+
+    @Value("${task.retention.daily-after-days:30}")
+    private int dailyAfterDays;
+
+    // Position of the next batch; wraps to the start when the end is reached
+    private long nextOffset;
+
+    @Value("${task.retention.interval-millis:60000}")
+    private long intervalMillis;
+
+    @Value("${task.retention.initial-delay-millis:60000}")
+    private long initialDelayMillis;
+
+    // Runs compaction on its own thread, so the pauses never hold a thread of the shared scheduler
+    private final ScheduledExecutorService runner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "execution-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        runner.scheduleWithFixedDelay(this::compact, initialDelayMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        Optional<TaskLease> lease = taskLeaseService.tryAcquire(LEASE_ID);
+        if (lease.isEmpty()) {
+            return;
+        }
+        try {
+            compactBatch();
+            rollUpDaily();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("Execution compaction failed: {}", e.getMessage());
+        } finally {
+            taskLeaseService.release(lease.get());
+        }
+    }
+
+    private void compactBatch() throws InterruptedException {
+        Query query = new Query().with(Sort.by("_id")).skip(nextOffset).limit(batchSize);
+        query.fields().include("retention")
+                .include("taskExecutions.startTime")
+                .include("taskExecutions.endTime")
+                .include("taskExecutions.exitCode")
+                .include("taskExecutions." + EXECUTION_ID)
+                .include("taskExecutions.outputFileId");
+
+        // Raw documents: the compactor never needs outputs, so skip entity conversion. Raw queries
+        // are not mapped, so fields are named as stored: the execution id is _id
+        List<Document> tasks = mongoTemplate.find(query, Document.class, "tasks");
+        nextOffset = tasks.size() < batchSize ? 0 : nextOffset + tasks.size();
+
+        for (Document task : tasks) {
+            int compacted = compactTask(task);
+            if (compacted > 0) {
+                logger.debug("Compacted {} executions of task {}", compacted, task.get("_id"));
+                Thread.sleep(pauseMillis);
+            }
+        }
+    }
+
+    private int compactTask(Document task) {
+        List<Document> executions = task.getList("taskExecutions", Document.class);
+        if (executions == null || executions.isEmpty()) {
+            return 0;
+        }
+
+        Document retention = task.get("retention", Document.class);
+        int keepLast = retention != null && retention.getInteger("keepLast") != null
+                ? retention.getInteger("keepLast") : defaultKeepLast;
+        int keepDays = retention != null && retention.getInteger("keepDays") != null
+                ? retention.getInteger("keepDays") : defaultKeepDays;
+        Instant cutoff = Instant.now().minus(keepDays, ChronoUnit.DAYS);
+
+        // Executions are appended as they complete, not in start order, so expired ones
+        // are picked individually among all but the last keepLast appended
+        List<Document> expired = new ArrayList<>();
+        for (int i = 0; i < executions.size() - keepLast && expired.size() < maxExecutionsPerTask; i++) {
+            Date startTime = executions.get(i).getDate("startTime");
+            if (startTime != null && startTime.toInstant().isBefore(cutoff)) {
+                expired.add(executions.get(i));
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        String taskId = task.get("_id").toString();
+        if (executionArchive.isEnabled() && !archive(task.get("_id"), taskId, expired)) {
+            return 0;
+        }
+
+        Map<Instant, List<Document>> byHour = new TreeMap<>();
+        for (Document execution : expired) {
+            Instant hour = execution.getDate("startTime").toInstant().truncatedTo(ChronoUnit.HOURS);
+            byHour.computeIfAbsent(hour, key -> new ArrayList<>()).add(execution);
+        }
+        byHour.forEach((hour, bucket) -> addToSummary(taskId, Granularity.HOURLY, hour, summarize(bucket)));
+
+        // Pull exactly what was summarized, so concurrent appends are unaffected
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(task.get("_id"))),
+                new Update().pull("taskExecutions", selector(expired)).inc("version", 1),
+                "tasks");
+
+        List<String> storedOutputs = expired.stream()
+                .filter(execution -> execution.getString("outputFileId") != null)
+                .map(ExecutionCompactor::executionId)
+                .filter(Objects::nonNull)
+                .toList();
+        executionOutputStore.delete(storedOutputs);
+        return expired.size();
+    }
+
+    /**
+     * Write the expired executions, with their outputs resolved, to the archive.
+     * Returns false when they should stay in the task for a later attempt.
+     */
+    private boolean archive(Object rawId, String taskId, List<Document> expired) {
+        Task full = mongoTemplate.findById(rawId, Task.class);
+        if (full == null) {
+            return false;
+        }
+        Set<String> ids = new HashSet<>();
+        Set<Date> idlessStarts = new HashSet<>();
+        for (Document execution : expired) {
+            if (executionId(execution) != null) {
+                ids.add(executionId(execution));
+            } else {
+                idlessStarts.add(execution.getDate("startTime"));
+            }
+        }
+        List<TaskExecution> executions = full.getTaskExecutions().stream()
+                .filter(execution -> execution.getId() != null
+                        ? ids.contains(execution.getId())
+                        : idlessStarts.contains(toDate(execution.getStartTime())))
+                .toList();
+        if (executions.size() != expired.size()) {
+            return false;
+        }
+        Task archived = new Task();
+        archived.setTaskExecutions(executions);
+        outputDedupService.resolve(archived);
+
+        // Stored outputs are deleted with the execution; the archive keeps the inline head and tail
+        executions.forEach(execution -> execution.setOutputFileId(null));
+        try {
+            executionArchive.append(taskId, executions);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to archive executions of task {}: {}", taskId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Pull condition matching the given executions: by id, or for executions
+     * stored before ids existed, by their exact start time.
+     */
+    private static Document selector(List<Document> executions) {
+        // Ids as stored, so the pull matches them whatever their BSON type
+        List<Object> ids = new ArrayList<>();
+        List<Date> idlessStarts = new ArrayList<>();
+        for (Document execution : executions) {
+            if (execution.get(EXECUTION_ID) != null) {
+                ids.add(execution.get(EXECUTION_ID));
+            } else {
+                idlessStarts.add(execution.getDate("startTime"));
+            }
+        }
+        if (idlessStarts.isEmpty()) {
+            return new Document(EXECUTION_ID, new Document("$in", ids));
+        }
+        return new Document("$or", List.of(
+                new Document(EXECUTION_ID, new Document("$in", ids)),
+                new Document(EXECUTION_ID, null).append("startTime", new Document("$in", idlessStarts))));
+    }
+
+    private static String executionId(Document execution) {
+        Object id = execution.get(EXECUTION_ID);
+        return id != null ? id.toString() : null;
+    }
+
+    // Same conversion the Mongo converter applies when it stores a LocalDateTime
+    private static Date toDate(LocalDateTime time) {
+        return time != null ? Date.from(time.atZone(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    private Update summarize(List<Document> executions) {
+        Update update = new Update();
+        long failures = 0;
+        long maxDuration = 0;
+        Map<Integer, Long> histogram = new TreeMap<>();
+        for (Document execution : executions) {
+            Integer exitCode = execution.getInteger("exitCode");
+            if (exitCode == null || exitCode != 0) {
+                failures++;
+            }
+            Date start = execution.getDate("startTime");
+            Date end = execution.getDate("endTime");
+            long duration = end != null ? Math.max(end.getTime() - start.getTime(), 0) : 0;
+            maxDuration = Math.max(maxDuration, duration);
+            histogram.merge(ExecutionSummary.histogramBucket(duration), 1L, Long::sum);
+        }
+
+        update.inc("count", (long) executions.size()).inc("failureCount", failures).max("maxDurationMillis", maxDuration);
+        histogram.forEach((bucket, count) -> update.inc("durationHistogram." + bucket, count));
+        return update;
+    }
+
+    private void addToSummary(String taskId, Granularity granularity, Instant bucketStart, Update update) {
+        update.setOnInsert("taskId", taskId)
+                .setOnInsert("granularity", granularity.name())
+                .setOnInsert("bucketStart", bucketStart);
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(ExecutionSummary.idFor(taskId, granularity, bucketStart))),
+                update, ExecutionSummary.class);
+    }
+
+    /**
+     * Merge old hourly summaries into daily ones.
+     */
+    private void rollUpDaily() {
+        Instant cutoff = Instant.now().minus(dailyAfterDays, ChronoUnit.DAYS);
+        Query query = new Query(Criteria.where("granularity").is(Granularity.HOURLY.name())
+                .and("bucketStart").lt(cutoff)).limit(batchSize * 10);
+
+        for (ExecutionSummary hourly : mongoTemplate.find(query, ExecutionSummary.class)) {
+            Update update = new Update()
+                    .inc("count", hourly.getCount())
+                    .inc("failureCount", hourly.getFailureCount())
+                    .max("maxDurationMillis", hourly.getMaxDurationMillis());
+            hourly.getDurationHistogram().forEach((bucket, count) -> update.inc("durationHistogram." + bucket, count));
+
+            Instant day = hourly.getBucketStart().truncatedTo(ChronoUnit.DAYS);
+            addToSummary(hourly.getTaskId(), Granularity.DAILY, day, update);
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(hourly.getId())), ExecutionSummary.class);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutionPriority;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Local handle of an execution registered with {@link ExecutionRegistry}.
+ * Whatever is running the execution watches it to stop early when the
+ * execution is cancelled.
+ */
+public class ExecutionHandle {
+
+    private final String executionId;
+    private final String taskId;
+    private final ExecutionPriority priority;
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+
+    ExecutionHandle(String executionId, String taskId, ExecutionPriority priority) {
+        this.executionId = executionId;
+        this.taskId = taskId;
+        this.priority = priority;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public ExecutionPriority getPriority() {
+        return priority;
+    }
+
+    public boolean isCancelled() {
+        return cancellation.isDone();
+    }
+
+    /**
+     * Completes when the execution is cancelled. Each call returns a new
+     * future, so callers may cancel theirs without affecting the handle.
+     */
+    public CompletableFuture<Void> onCancel() {
+        return cancellation.copy();
+    }
+
+    /**
+     * Wait up to the given time for the execution to be cancelled.
+     *
+     * @return whether it was cancelled
+     */
+    public boolean awaitCancel(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            cancellation.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return false if it was already cancelled
+     */
+    boolean cancel() {
+        return cancellation.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return executionId;
+    }
+}
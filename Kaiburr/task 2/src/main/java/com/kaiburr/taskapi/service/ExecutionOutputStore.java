@@ -0,0 +1,233 @@
+package com.kaiburr.taskapi.service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores full execution outputs in GridFS so they don't bloat task documents.
+ *
+ * <p>Outputs are compressed as a sequence of independent gzip members, one
+ * per fixed-size block of the original output, and the compressed offset of
+ * every block is kept in the file metadata. Reading from an arbitrary offset
+ * (an HTTP Range request) therefore only decompresses from the start of the
+ * containing block.
+ */
+@Service
+public class ExecutionOutputStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionOutputStore.class);
+
+    private static final String ENCODING = "gzip-blocks";
+
+    // Files collection of the default GridFS bucket
+    private static final String FILES_COLLECTION = "fs.files";
+
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${task.output.gridfs.block-bytes:1048576}")
+    private int blockBytes;
+
+    /**
+     * Index the files by execution, which every load and delete filters on.
+     * GridFS only indexes filenames and upload dates by itself.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(FILES_COLLECTION).ensureIndex(
+                new Index().on("metadata.executionId", Sort.Direction.ASC).named("execution_id_idx"));
+    }
+
+    /**
+     * Compress and upload the full output of an execution. Returns the GridFS
+     * file id.
+     */
+    public String store(String executionId, Path output) throws IOException {
+        Path compressed = output.resolveSibling(output.getFileName() + ".gz");
+        try {
+            List<Long> blockOffsets = compress(output, compressed);
+
+            Document metadata = new Document("executionId", executionId)
+                    .append("encoding", ENCODING)
+                    .append("blockBytes", blockBytes)
+                    .append("blockOffsets", blockOffsets)
+                    .append("originalBytes", Files.size(output));
+            try (InputStream in = Files.newInputStream(compressed)) {
+                ObjectId id = gridFsTemplate.store(in, executionId + ".out.gz", "application/gzip", metadata);
+                logger.debug("Stored output of execution {} ({} -> {} bytes)",
+                        executionId, Files.size(output), Files.size(compressed));
+                return id.toHexString();
+            }
+        } finally {
+            Files.deleteIfExists(compressed);
+        }
+    }
+
+    /**
+     * The decompressed output of an execution as a resource that supports
+     * efficient skipping, or empty if it was never stored.
+     */
+    public Optional<Resource> load(String executionId) {
+        GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where("metadata.executionId").is(executionId)));
+        if (file == null || file.getMetadata() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredOutputResource(gridFsTemplate.getResource(file), file.getMetadata()));
+    }
+
+    public void delete(Collection<String> executionIds) {
+        if (!executionIds.isEmpty()) {
+            gridFsTemplate.delete(new Query(Criteria.where("metadata.executionId").in(executionIds)));
+        }
+    }
+
+    private List<Long> compress(Path source, Path target) throws IOException {
+        List<Long> blockOffsets = new ArrayList<>();
+        byte[] block = new byte[blockBytes];
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source));
+                FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            int read;
+            while ((read = in.readNBytes(block, 0, blockBytes)) > 0) {
+                out.flush();
+                blockOffsets.add(channel.position());
+                // Each block is a complete gzip member; closing it must not close the file
+                try (GZIPOutputStream gzip = new GZIPOutputStream(new FilterOutputStream(out) {
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                })) {
+                    gzip.write(block, 0, read);
+                }
+            }
+            out.flush();
+        }
+        return blockOffsets;
+    }
+
+    private final class StoredOutputResource extends AbstractResource {
+
+        private final GridFsResource resource;
+        private final long originalBytes;
+        private final int blockSize;
+        private final List<Long> blockOffsets;
+
+        StoredOutputResource(GridFsResource resource, Document metadata) {
+            this.resource = resource;
+            this.originalBytes = metadata.get("originalBytes", Number.class).longValue();
+            this.blockSize = metadata.getInteger("blockBytes");
+            this.blockOffsets = metadata.getList("blockOffsets", Long.class);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new BlockSeekingInputStream();
+        }
+
+        @Override
+        public long contentLength() {
+            return originalBytes;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Execution output " + resource.getFilename();
+        }
+
+        /**
+         * Decompressing stream whose first skip jumps straight to the block that
+         * contains the target offset.
+         */
+        private final class BlockSeekingInputStream extends InputStream {
+
+            private InputStream current;
+
+            @Override
+            public long skip(long n) throws IOException {
+                if (n <= 0) {
+                    return 0;
+                }
+                if (current == null) {
+                    long target = Math.min(n, originalBytes);
+                    int block = (int) Math.min(target / blockSize, blockOffsets.size() - 1);
+                    InputStream raw = resource.getInputStream();
+                    // GridFS download streams skip whole chunks without reading them
+                    raw.skipNBytes(blockOffsets.get(block));
+                    current = new GZIPInputStream(raw, 65536);
+                    current.skipNBytes(target - (long) block * blockSize);
+                    return target;
+                }
+                return current.skip(n);
+            }
+
+            @Override
+            public int read() throws IOException {
+                return open().read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return open().read(buffer, offset, length);
+            }
+
+            private InputStream open() throws IOException {
+                if (current == null) {
+                    current = new GZIPInputStream(resource.getInputStream(), 65536);
+                }
+                return current;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (current != null) {
+                    current.close();
+                }
+            }
+        }
+    }
+}
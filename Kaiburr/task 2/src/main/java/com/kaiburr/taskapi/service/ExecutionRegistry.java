@@ -0,0 +1,146 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ActiveExecution;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutionStatus;
+import com.kaiburr.taskapi.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the queued and running executions of all replicas in the
+ * active_executions collection, so any replica can list and cancel them.
+ *
+ * <p>A cancellation received by the replica running the execution takes
+ * effect at once. Otherwise it is recorded on the execution's document, where
+ * the running replica picks it up on its next poll.
+ */
+@Service
+public class ExecutionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionRegistry.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Upper bound on how long an execution can be queued and run; the document expires after it
+    @Value("${task.cancel.active-ttl-seconds:3600}")
+    private long activeTtlSeconds;
+
+    private final String replicaId = Optional.ofNullable(System.getenv("HOSTNAME"))
+            .orElse("replica") + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<String, ExecutionHandle> local = new ConcurrentHashMap<>();
+
+    /**
+     * Register a new, queued execution of a task. Every call must be matched by
+     * {@link #finished}.
+     */
+    public ExecutionHandle register(Task task, ExecutionPriority priority) {
+        ExecutionHandle handle = new ExecutionHandle(UUID.randomUUID().toString(), task.getId(), priority);
+
+        ActiveExecution active = new ActiveExecution();
+        active.setId(handle.getExecutionId());
+        active.setTaskId(task.getId());
+        active.setStatus(ExecutionStatus.QUEUED);
+        active.setPriority(priority);
+        active.setReplica(replicaId);
+        active.setQueuedAt(LocalDateTime.now());
+        active.setExpiresAt(Instant.now().plusSeconds(activeTtlSeconds));
+        mongoTemplate.insert(active);
+
+        local.put(handle.getExecutionId(), handle);
+        return handle;
+    }
+
+    /**
+     * Record that the execution got a slot and is starting.
+     */
+    public void started(ExecutionHandle handle) {
+        mongoTemplate.updateFirst(byId(handle.getExecutionId()),
+                new Update().set("status", ExecutionStatus.RUNNING), ActiveExecution.class);
+    }
+
+    public void finished(ExecutionHandle handle) {
+        local.remove(handle.getExecutionId());
+        try {
+            mongoTemplate.remove(byId(handle.getExecutionId()), ActiveExecution.class);
+        } catch (RuntimeException e) {
+            // The document expires on its own
+            logger.warn("Failed to remove active execution {}: {}", handle, e.getMessage());
+        }
+    }
+
+    /**
+     * Queued and running executions of a task, oldest first.
+     */
+    public List<ActiveExecution> findActive(String taskId) {
+        return mongoTemplate.find(activeQuery(taskId), ActiveExecution.class);
+    }
+
+    public Query activeQuery(String taskId) {
+        return new Query(Criteria.where("taskId").is(taskId)).with(Sort.by("queuedAt"));
+    }
+
+    /**
+     * Request cancellation of a queued or running execution of a task.
+     *
+     * @return the execution, or empty if it is not active
+     */
+    public Optional<ActiveExecution> cancel(String taskId, String executionId) {
+        ActiveExecution active = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(executionId).and("taskId").is(taskId)),
+                new Update().set("cancelRequested", true),
+                FindAndModifyOptions.options().returnNew(true), ActiveExecution.class);
+        if (active == null) {
+            return Optional.empty();
+        }
+
+        ExecutionHandle handle = local.get(executionId);
+        if (handle != null && handle.cancel()) {
+            logger.info("Cancelled execution {} of task {}", executionId, taskId);
+        }
+        return Optional.of(active);
+    }
+
+    /**
+     * Apply cancellations that were received by other replicas.
+     */
+    @Scheduled(fixedDelayString = "${task.cancel.poll-millis:1000}")
+    public void pollCancellations() {
+        if (local.isEmpty()) {
+            return;
+        }
+        Query query = new Query(Criteria.where("_id").in(local.keySet()).and("cancelRequested").is(true));
+        query.fields().include("_id");
+        for (ActiveExecution active : mongoTemplate.find(query, ActiveExecution.class)) {
+            ExecutionHandle handle = local.get(active.getId());
+            if (handle != null && handle.cancel()) {
+                logger.info("Cancelled execution {} of task {} on request of another replica",
+                        active.getId(), handle.getTaskId());
+            }
+        }
+    }
+
+    private static Query byId(String executionId) {
+        return new Query(Criteria.where("_id").is(executionId));
+    }
+}
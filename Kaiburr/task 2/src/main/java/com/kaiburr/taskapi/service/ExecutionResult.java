@@ -0,0 +1,22 @@
+package com.kaiburr.taskapi.service;
+
+/**
+ * Outcome of a command run by a {@link TaskExecutor}.
+ *
+ * @param output    captured command output, or an error message
+ * @param exitCode  exit code of the command, or null if it never terminated
+ * @param cancelled whether the command was stopped because the execution was cancelled
+ */
+public record ExecutionResult(CapturedOutput output, Integer exitCode, boolean cancelled) {
+
+    public ExecutionResult(CapturedOutput output, Integer exitCode) {
+        this(output, exitCode, false);
+    }
+
+    /**
+     * Result carrying only an error message.
+     */
+    public static ExecutionResult message(String text) {
+        return new ExecutionResult(new CapturedOutput(text, text.length(), false, null), null);
+    }
+}
@@ -0,0 +1,159 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.KubernetesUnavailableException;
+import io.kubernetes.client.PodLogs;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A namespace, in the default cluster configuration or a named kubeconfig
+ * context, that execution pods can be placed in. Each target has its own API
+ * clients, created on first use, and its own circuit breaker.
+ */
+public class ExecutionTarget {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionTarget.class);
+
+    // How long a target whose clients could not be created is skipped before trying again
+    private static final long INITIALIZATION_RETRY_MILLIS = 30_000;
+
+    private final String context;
+    private final String namespace;
+    private final int weight;
+    private final ResilientKubernetesClient resilientClient;
+    private final Supplier<ApiClient> requestClient;
+    private final Supplier<ApiClient> streamingClient;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile CoreV1Api requestApi;
+
+    // Used for watches and log reads, which can stay open much longer than other calls
+    private volatile CoreV1Api streamingApi;
+    private volatile PodLogs podLogs;
+
+    // Why the last initialization attempt failed, null once the clients exist
+    private volatile String initializationError;
+    private volatile long initializationFailedAt;
+
+    ExecutionTarget(String context, String namespace, int weight, ResilientKubernetesClient resilientClient,
+            Supplier<ApiClient> requestClient, Supplier<ApiClient> streamingClient) {
+        this.context = context;
+        this.namespace = namespace;
+        this.weight = weight;
+        this.resilientClient = resilientClient;
+        this.requestClient = requestClient;
+        this.streamingClient = streamingClient;
+    }
+
+    /**
+     * Create the Kubernetes clients if they don't exist yet. A failed attempt is
+     * reported through {@link #getInitializationError()} and retried on next use.
+     */
+    public synchronized void initialize() {
+        if (requestApi != null) {
+            return;
+        }
+        try {
+            ApiClient streaming = streamingClient.get();
+            podLogs = new PodLogs(streaming);
+            streamingApi = new CoreV1Api(streaming);
+            requestApi = new CoreV1Api(requestClient.get());
+            initializationError = null;
+            logger.info("Kubernetes client for target {} initialized successfully", getName());
+        } catch (RuntimeException e) {
+            initializationError = e.getMessage();
+            initializationFailedAt = System.currentTimeMillis();
+            logger.error("Failed to initialize Kubernetes client for target {}", getName(), e);
+            throw new KubernetesUnavailableException("Kubernetes client for " + getName() + " is not available: "
+                    + e.getMessage());
+        }
+    }
+
+    public boolean isInitialized() {
+        return requestApi != null;
+    }
+
+    public String getInitializationError() {
+        return initializationError;
+    }
+
+    /**
+     * Whether new executions may be placed here: the clients exist or may be
+     * (re)tried, and the circuit breaker is not open.
+     */
+    public boolean isHealthy() {
+        boolean usable = isInitialized() || initializationError == null
+                || System.currentTimeMillis() - initializationFailedAt > INITIALIZATION_RETRY_MILLIS;
+        return usable && !resilientClient.isCircuitOpen();
+    }
+
+    public CoreV1Api requestApi() {
+        if (requestApi == null) {
+            initialize();
+        }
+        return requestApi;
+    }
+
+    public CoreV1Api streamingApi() {
+        if (requestApi == null) {
+            initialize();
+        }
+        return streamingApi;
+    }
+
+    public PodLogs podLogs() {
+        if (requestApi == null) {
+            initialize();
+        }
+        return podLogs;
+    }
+
+    public ResilientKubernetesClient getResilientClient() {
+        return resilientClient;
+    }
+
+    public String getName() {
+        return context != null ? context + "/" + namespace : namespace;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Executions in flight per unit of capacity.
+     */
+    double load() {
+        return inFlight.get() / (double) weight;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished() {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,253 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind buffer for completed executions.
+ *
+ * <p>Executions are queued and a single flusher thread writes them in batches,
+ * every {@code task.write-behind.flush-interval-millis} or every
+ * {@code task.write-behind.max-batch} items. Executions of the same task are
+ * coalesced into one {@code $push $each}, and all tasks of a batch go out in one
+ * unordered bulk write. When the buffer is disabled, stopped or full,
+ * {@link #offer} returns false and the caller writes synchronously.
+ *
+ * <p>A batch is never dropped: once the bulk write has failed
+ * {@code task.write-behind.max-attempts} times, the batch is retried task by
+ * task with a capped backoff until it is written. Until then {@link #offer}
+ * refuses new executions, so callers write (and see failures) themselves.
+ *
+ * <p>The queue is drained before the application context closes, for at most
+ * the shutdown timeout. Executions still queued when the process is killed
+ * outright are lost.
+ */
+@Service
+public class ExecutionWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionWriteBuffer.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OutputDedupService outputDedupService;
+
+    private final boolean enabled;
+    private final long flushIntervalNanos;
+    private final int maxBatch;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long shutdownTimeoutMillis;
+    private final BlockingQueue<PendingExecution> queue;
+
+    private volatile boolean running;
+    // Set while a failed batch is being retried; new executions are refused meanwhile
+    private volatile boolean stalled;
+    // Time after which retries give up, set on shutdown
+    private volatile long stopDeadlineMillis = Long.MAX_VALUE;
+    private Thread flusher;
+
+    public ExecutionWriteBuffer(
+            @Value("${task.write-behind.enabled:false}") boolean enabled,
+            @Value("${task.write-behind.capacity:1000}") int capacity,
+            @Value("${task.write-behind.flush-interval-millis:5}") long flushIntervalMillis,
+            @Value("${task.write-behind.max-batch:200}") int maxBatch,
+            @Value("${task.write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${task.write-behind.retry-backoff-millis:100}") long retryBackoffMillis,
+            @Value("${task.write-behind.shutdown-timeout-millis:10000}") long shutdownTimeoutMillis,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxBatch = maxBatch;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        Gauge.builder("task.write_behind.pending", queue, BlockingQueue::size)
+                .description("Executions waiting to be written").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "execution-write-behind");
+        flusher.start();
+    }
+
+    /**
+     * Queue an execution to be appended to its task. The execution is copied, so
+     * the caller may keep using its instance.
+     *
+     * @return false if the execution was not queued and must be written by the caller
+     */
+    public boolean offer(String taskId, TaskExecution execution) {
+        return running && !stalled && queue.offer(new PendingExecution(taskId, new TaskExecution(execution)));
+    }
+
+    private void flushLoop() {
+        List<PendingExecution> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingExecution first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Gather more until the batch is full or the flush interval has passed
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingExecution next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Only shutdown interrupts; keep draining until the queue is empty
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingExecution> batch) {
+        Map<String, List<TaskExecution>> byTask = new LinkedHashMap<>();
+        for (PendingExecution pending : batch) {
+            try {
+                outputDedupService.deduplicate(pending.taskId(), pending.execution());
+            } catch (RuntimeException e) {
+                // Store the output inline rather than hold up the batch
+                logger.debug("Output deduplication failed for task {}: {}", pending.taskId(), e.getMessage());
+            }
+            byTask.computeIfAbsent(pending.taskId(), taskId -> new ArrayList<>()).add(pending.execution());
+        }
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class);
+                byTask.forEach((taskId, executions) -> bulk.updateOne(pushQuery(taskId, executions),
+                        new Update().push("taskExecutions").each(executions.toArray()).inc("version", 1)));
+                bulk.execute();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Write-behind flush of {} executions failed (attempt {}/{}): {}",
+                        batch.size(), attempt, maxAttempts, e.getMessage());
+                backOff(attempt);
+            }
+        }
+
+        logger.error("Write-behind flush of {} executions failed {} times, retrying task by task",
+                batch.size(), maxAttempts);
+        stalled = true;
+        try {
+            retryUntilWritten(byTask);
+        } finally {
+            stalled = false;
+        }
+    }
+
+    /**
+     * Write each task's executions on its own until all are stored, so a task
+     * whose write keeps failing doesn't hold back the others.
+     */
+    private void retryUntilWritten(Map<String, List<TaskExecution>> byTask) {
+        for (int attempt = maxAttempts + 1; ; attempt++) {
+            byTask.entrySet().removeIf(entry -> write(entry.getKey(), entry.getValue()));
+            if (byTask.isEmpty()) {
+                return;
+            }
+            if (System.currentTimeMillis() > stopDeadlineMillis) {
+                logger.error("Write-behind stopped before executions {} could be written", byTask.values().stream()
+                        .flatMap(List::stream).map(TaskExecution::getId).toList());
+                return;
+            }
+            backOff(attempt);
+        }
+    }
+
+    private boolean write(String taskId, List<TaskExecution> executions) {
+        try {
+            mongoTemplate.updateFirst(pushQuery(taskId, executions),
+                    new Update().push("taskExecutions").each(executions.toArray()).inc("version", 1), Task.class);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Write-behind write of {} executions of task {} failed: {}",
+                    executions.size(), taskId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMillis << Math.min(attempt, 6));
+        } catch (InterruptedException interrupted) {
+            // Only shutdown interrupts; pending executions are still written until its deadline
+            running = false;
+        }
+    }
+
+    /**
+     * Matches the task only while none of the executions is in it yet, so a
+     * retried flush never appends an execution twice.
+     */
+    private Query pushQuery(String taskId, List<TaskExecution> executions) {
+        List<String> ids = executions.stream().map(TaskExecution::getId).toList();
+        return new Query(Criteria.where("_id").is(taskId).and("taskExecutions.id").nin(ids));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        stopDeadlineMillis = System.currentTimeMillis() + shutdownTimeoutMillis;
+        running = false;
+        flusher.join(shutdownTimeoutMillis);
+        if (flusher.isAlive()) {
+            logger.error("Write-behind buffer did not drain within {} ms, {} executions pending",
+                    shutdownTimeoutMillis, queue.size());
+            return;
+        }
+
+        // Executions queued after the flusher saw the stop flag
+        List<PendingExecution> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    private record PendingExecution(String taskId, TaskExecution execution) {
+    }
+}
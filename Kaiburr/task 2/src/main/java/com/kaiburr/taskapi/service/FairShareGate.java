@@ -0,0 +1,222 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.RateLimitExceededException;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the executions running on this replica and, when they are contended,
+ * hands out free slots by weighted fair queuing on the task owner.
+ *
+ * <p>This is start-time fair queuing: an execution's start tag is the later of
+ * the virtual time and its owner's previous finish tag, and its finish tag is
+ * {@code 1 / weight} later. Waiting executions are admitted in start tag
+ * order, so an owner with many queued executions pushes only its own tags back
+ * and cannot crowd out owners with few, and an owner with weight 2 gets twice
+ * the slots of one with weight 1.
+ *
+ * <p>Fair queuing applies within a priority. A slot goes to the waiting
+ * execution with the highest priority, where each waiting execution is raised
+ * one level for every {@code task.priority.aging-seconds} it has waited, so
+ * low priorities can be delayed but not starved. Ties go to the execution
+ * waiting longest.
+ */
+@Service
+public class FairShareGate {
+
+    /**
+     * A held execution slot; release it exactly once.
+     */
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final class Waiter {
+
+        final double tag;
+        final long sequence;
+        final ExecutionPriority priority;
+        final long queuedAt = System.nanoTime();
+        final CountDownLatch admitted = new CountDownLatch(1);
+
+        Waiter(double tag, long sequence, ExecutionPriority priority) {
+            this.tag = tag;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+    }
+
+    @Autowired
+    private OwnerQuotaService ownerQuotaService;
+
+    private final int maxConcurrent;
+    private final long queueTimeoutSeconds;
+    private final long agingNanos;
+
+    // Waiting executions of each priority, in start tag order
+    private final Map<ExecutionPriority, PriorityQueue<Waiter>> waiting = new EnumMap<>(ExecutionPriority.class);
+    private int waitingCount;
+    private final Map<String, Double> lastTags = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int running;
+
+    public FairShareGate(
+            @Value("${task.fair-share.max-concurrent:32}") int maxConcurrent,
+            @Value("${task.fair-share.queue-timeout-seconds:60}") long queueTimeoutSeconds,
+            @Value("${task.priority.aging-seconds:20}") long agingSeconds,
+            MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.queueTimeoutSeconds = queueTimeoutSeconds;
+        this.agingNanos = TimeUnit.SECONDS.toNanos(Math.max(1, agingSeconds));
+        for (ExecutionPriority priority : ExecutionPriority.values()) {
+            waiting.put(priority, new PriorityQueue<>(Comparator.comparingDouble((Waiter waiter) -> waiter.tag)
+                    .thenComparingLong(waiter -> waiter.sequence)));
+        }
+
+        Gauge.builder("task.fair_share.waiting", this, FairShareGate::waitingCount)
+                .description("Executions waiting for a slot").register(meterRegistry);
+    }
+
+    /**
+     * Wait for an execution slot for the given owner.
+     *
+     * @throws RateLimitExceededException if no slot was granted within the queue timeout
+     */
+    public Permit acquire(String owner) throws InterruptedException {
+        return acquire(owner, ExecutionPriority.NORMAL, null);
+    }
+
+    /**
+     * Wait for an execution slot for the given owner and priority, giving up
+     * when the execution is cancelled.
+     *
+     * @param cancellation completes when the execution is cancelled, may be null
+     * @throws CancellationException if the execution was cancelled while waiting
+     * @throws RateLimitExceededException if no slot was granted within the queue timeout
+     */
+    public Permit acquire(String owner, ExecutionPriority priority, CompletableFuture<Void> cancellation)
+            throws InterruptedException {
+        if (maxConcurrent <= 0) {
+            return () -> {
+            };
+        }
+        String key = owner != null ? owner : "";
+        int weight = ownerQuotaService.limitsFor(key).weight();
+
+        Waiter waiter;
+        synchronized (this) {
+            double start = Math.max(virtualTime, lastTags.getOrDefault(key, 0.0));
+            lastTags.put(key, start + 1.0 / weight);
+            if (running < maxConcurrent && waitingCount == 0) {
+                running++;
+                virtualTime = start;
+                return permit();
+            }
+            waiter = new Waiter(start, sequence++, priority != null ? priority : ExecutionPriority.NORMAL);
+            waiting.get(waiter.priority).add(waiter);
+            waitingCount++;
+        }
+        if (cancellation != null) {
+            cancellation.thenRun(waiter.admitted::countDown);
+        }
+
+        boolean admitted;
+        try {
+            admitted = waiter.admitted.await(queueTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            if (!withdraw(waiter)) {
+                // The slot was handed over meanwhile; pass it on
+                release();
+            }
+            throw e;
+        }
+        if (cancellation != null && cancellation.isDone() && withdraw(waiter)) {
+            throw new CancellationException("Execution was cancelled while waiting for a slot");
+        }
+        // Admitted between the timeout and the withdrawal: keep the slot
+        if (!admitted && withdraw(waiter)) {
+            throw new RateLimitExceededException("No execution slot available for owner '" + key + "'", 1);
+        }
+        return permit();
+    }
+
+    private synchronized boolean withdraw(Waiter waiter) {
+        if (!waiting.get(waiter.priority).remove(waiter)) {
+            return false;
+        }
+        waitingCount--;
+        return true;
+    }
+
+    private Permit permit() {
+        return new Permit() {
+            private boolean released;
+
+            @Override
+            public void close() {
+                if (!released) {
+                    released = true;
+                    release();
+                }
+            }
+        };
+    }
+
+    private synchronized void release() {
+        Waiter next = next();
+        if (next == null) {
+            running--;
+            // Owners whose finish tags the virtual time has passed have no backlog to remember
+            lastTags.values().removeIf(tag -> tag <= virtualTime);
+            return;
+        }
+        waiting.get(next.priority).remove();
+        waitingCount--;
+        virtualTime = Math.max(virtualTime, next.tag);
+        next.admitted.countDown();
+    }
+
+    /**
+     * The waiting execution to admit next: of the first in line of each
+     * priority, the one with the highest aged priority.
+     */
+    private Waiter next() {
+        long now = System.nanoTime();
+        int top = ExecutionPriority.values().length - 1;
+        Waiter best = null;
+        long bestLevel = -1;
+        for (PriorityQueue<Waiter> queue : waiting.values()) {
+            Waiter head = queue.peek();
+            if (head == null) {
+                continue;
+            }
+            long level = Math.min(top, head.priority.ordinal() + (now - head.queuedAt) / agingNanos);
+            if (level > bestLevel || level == bestLevel && head.queuedAt < best.queuedAt) {
+                best = head;
+                bestLevel = level;
+            }
+        }
+        return best;
+    }
+
+    private synchronized int waitingCount() {
+        return waitingCount;
+    }
+}
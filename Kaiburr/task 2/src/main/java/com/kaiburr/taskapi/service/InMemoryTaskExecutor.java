@@ -0,0 +1,73 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutorBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pretends to run commands, for benchmarks and tests of everything around the
+ * execution (queueing, leases, output storage, pipelines) without a cluster.
+ *
+ * <p>The result depends only on the command and the configuration: the output
+ * is the command line, repeated until it is at least
+ * {@code task.executor.in-memory.output-bytes} long, and the exit code is
+ * {@code task.executor.in-memory.exit-code}. Each execution takes
+ * {@code task.executor.in-memory.delay-millis}, unless it is cancelled sooner.
+ */
+@Component
+public class InMemoryTaskExecutor implements TaskExecutor {
+
+    private final OutputStorageService outputStorageService;
+    private final long delayMillis;
+    private final long outputBytes;
+    private final int exitCode;
+
+    public InMemoryTaskExecutor(OutputStorageService outputStorageService,
+            @Value("${task.executor.in-memory.delay-millis:0}") long delayMillis,
+            @Value("${task.executor.in-memory.output-bytes:0}") long outputBytes,
+            @Value("${task.executor.in-memory.exit-code:0}") int exitCode) {
+        this.outputStorageService = outputStorageService;
+        this.delayMillis = delayMillis;
+        this.outputBytes = outputBytes;
+        this.exitCode = exitCode;
+    }
+
+    @Override
+    public ExecutorBackend getBackend() {
+        return ExecutorBackend.IN_MEMORY;
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(Capability.CANCELLATION, Capability.BATCHING);
+    }
+
+    @Override
+    public ExecutionResult execute(String taskId, String command, ExecutionHandle handle) throws InterruptedException {
+        if (delayMillis > 0 && handle.awaitCancel(delayMillis, TimeUnit.MILLISECONDS)) {
+            return new ExecutionResult(new CapturedOutput("", 0, false, null), null, true);
+        }
+
+        // Goes through a capture like real output, so large outputs are spilled the same way
+        OutputCapture capture = outputStorageService.newCapture(handle.getExecutionId());
+        byte[] line = (command + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            do {
+                capture.write(line);
+            } while (capture.getTotalBytes() < outputBytes);
+            return new ExecutionResult(capture.finish(), exitCode);
+        } catch (IOException e) {
+            try {
+                capture.discard();
+            } catch (IOException ignored) {
+                // Only a leftover spill file, removed when outputs expire
+            }
+            return ExecutionResult.message("Failed to store command output: " + e.getMessage());
+        }
+    }
+}
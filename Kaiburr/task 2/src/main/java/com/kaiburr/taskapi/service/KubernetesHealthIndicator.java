@@ -0,0 +1,79 @@
+package com.kaiburr.taskapi.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports whether the lazily created Kubernetes clients of the execution
+ * targets are usable. Once the application is ready the clients are warmed up
+ * on a background thread, so startup doesn't wait for them and the first
+ * execution doesn't pay for them.
+ *
+ * <p>The indicator is UP while at least one target can take executions. It is
+ * part of {@code /actuator/health} but not of the liveness and readiness
+ * groups: a cluster outage should not restart pods or take the task API out
+ * of service.
+ */
+@Component("kubernetes")
+public class KubernetesHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private PodPlacementService podPlacementService;
+
+    @Value("${kubernetes.client.warm-up:true}")
+    private boolean warmUp;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            for (ExecutionTarget target : podPlacementService.getTargets()) {
+                try {
+                    target.initialize();
+                } catch (RuntimeException e) {
+                    // Already logged; reported as DOWN and retried on use
+                }
+            }
+        }, "kubernetes-client-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> targets = new LinkedHashMap<>();
+        boolean anyUp = false;
+        boolean anyDown = false;
+        for (ExecutionTarget target : podPlacementService.getTargets()) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            String status;
+            if (target.isInitialized()) {
+                status = target.isHealthy() ? "UP" : "CIRCUIT_OPEN";
+            } else if (target.getInitializationError() != null) {
+                status = "DOWN";
+                details.put("error", target.getInitializationError());
+            } else {
+                status = "NOT_INITIALIZED";
+            }
+            anyUp |= "UP".equals(status);
+            anyDown |= !"UP".equals(status) && !"NOT_INITIALIZED".equals(status);
+            details.put("status", status);
+            details.put("weight", target.getWeight());
+            details.put("inFlight", target.getInFlight());
+            targets.put(target.getName(), details);
+        }
+
+        Health.Builder health = anyUp ? Health.up() : anyDown ? Health.down() : Health.unknown();
+        return health.withDetail("targets", targets).build();
+    }
+}
@@ -1,75 +1,115 @@
 package com.kaiburr.taskapi.service;
 
-import io.kubernetes.client.openapi.ApiClient;
+import com.kaiburr.taskapi.model.ExecutorBackend;
 import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.Configuration;
-import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.*;
-import io.kubernetes.client.util.Config;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Runs each execution in its own busybox pod. The default {@link TaskExecutor}.
+ */
 @Service
-public class KubernetesService {
+public class KubernetesService implements TaskExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(KubernetesService.class);
 
-    @Value("${kubernetes.namespace:default}")
-    private String namespace;
+    @Autowired
+    private OutputStorageService outputStorageService;
 
-    private final CoreV1Api coreV1Api;
+    @Autowired
+    private PodPlacementService podPlacementService;
 
-    public KubernetesService() {
-        try {
-            // Initialize Kubernetes client
-            ApiClient client = Config.defaultClient();
-            Configuration.setDefaultApiClient(client);
-            this.coreV1Api = new CoreV1Api();
-            logger.info("Kubernetes client initialized successfully");
-        } catch (IOException e) {
-            logger.error("Failed to initialize Kubernetes client", e);
-            throw new RuntimeException("Failed to initialize Kubernetes client", e);
-        }
+    @Value("${kubernetes.pod.max-wait-seconds:60}")
+    private int maxWaitSeconds;
+
+    @Override
+    public ExecutorBackend getBackend() {
+        return ExecutorBackend.KUBERNETES;
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(Capability.STREAMING, Capability.CANCELLATION);
+    }
+
+    @Override
+    public ExecutionResult execute(String taskId, String command, ExecutionHandle handle) {
+        return executeCommandInPod(taskId, command, handle);
     }
 
     /**
-     * Execute command in a Kubernetes pod using busybox image
+     * Execute command in a Kubernetes pod using busybox image, in the namespace
+     * chosen by {@link PodPlacementService}. Large logs are spilled to disk under
+     * the execution id and only their head and tail are returned inline.
+     *
+     * <p>When the execution is cancelled, the log written so far is collected
+     * and the pod is deleted without a grace period.
      */
-    public String executeCommandInPod(String taskId, String command) {
+    public ExecutionResult executeCommandInPod(String taskId, String command, ExecutionHandle handle) {
+        String executionId = handle.getExecutionId();
         String podName = "task-execution-" + taskId + "-" + System.currentTimeMillis();
+        ExecutionTarget target = null;
 
         try {
+            target = podPlacementService.acquire();
+
             // Create pod
-            V1Pod pod = createTaskPod(podName, command);
-            V1Pod createdPod = coreV1Api.createNamespacedPod(namespace, pod, null, null, null, null);
-            logger.info("Created pod: {}", createdPod.getMetadata().getName());
+            V1Pod pod = createTaskPod(podName, command,
+                    podPlacementService.priorityClassName(handle.getPriority()));
+            createPodIdempotent(target, pod);
+            logger.info("Created pod: {} in {}", podName, target);
 
             // Wait for pod to complete
-            String output = waitForPodCompletion(podName);
+            ExecutionResult output = waitForPodCompletion(target, podName, executionId, handle);
 
-            // Clean up pod
-            deletePod(podName);
+            // Clean up pod; a cancelled one is killed right away to free its resources
+            deletePod(target, podName, output.cancelled() ? 0 : null);
 
             return output;
 
         } catch (ApiException e) {
             logger.error("Kubernetes API error while executing command in pod", e);
-            return "Error executing command in Kubernetes pod: " + e.getMessage();
+            return ExecutionResult.message("Error executing command in Kubernetes pod: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Unexpected error while executing command in pod", e);
-            return "Unexpected error: " + e.getMessage();
+            return ExecutionResult.message("Unexpected error: " + e.getMessage());
+        } finally {
+            if (target != null) {
+                podPlacementService.release(target);
+            }
+        }
+    }
+
+    private void createPodIdempotent(ExecutionTarget target, V1Pod pod) throws ApiException, InterruptedException {
+        try {
+            target.getResilientClient().call("createPod",
+                    () -> target.requestApi().createNamespacedPod(target.getNamespace(), pod, null, null, null, null));
+        } catch (ApiException e) {
+            // A retried create whose first attempt reached the server reports a conflict
+            if (e.getCode() != 409) {
+                throw e;
+            }
+            logger.info("Pod {} already exists, continuing", pod.getMetadata().getName());
         }
     }
 
-    private V1Pod createTaskPod(String podName, String command) {
+    /**
+     * @param priorityClassName Kubernetes priority class of the pod, or null for the cluster default
+     */
+    static V1Pod createTaskPod(String podName, String command, String priorityClassName) {
         return new V1Pod()
                 .metadata(new V1ObjectMeta()
                         .name(podName)
@@ -78,6 +118,7 @@ public class KubernetesService {
                                 "created-by", "kaiburr-task-api")))
                 .spec(new V1PodSpec()
                         .restartPolicy("Never")
+                        .priorityClassName(priorityClassName)
                         .containers(Collections.singletonList(
                                 new V1Container()
                                         .name("task-container")
@@ -95,13 +136,14 @@ public class KubernetesService {
                                                         new io.kubernetes.client.custom.Quantity("64Mi")))))));
     }
 
-    private String waitForPodCompletion(String podName) throws ApiException, InterruptedException {
-        int maxWaitTime = 60; // seconds
+    private ExecutionResult waitForPodCompletion(ExecutionTarget target, String podName, String executionId,
+            ExecutionHandle handle) throws ApiException, InterruptedException {
         int waitInterval = 2; // seconds
         int elapsedTime = 0;
 
-        while (elapsedTime < maxWaitTime) {
-            V1Pod pod = coreV1Api.readNamespacedPod(podName, namespace, null);
+        while (elapsedTime < maxWaitSeconds) {
+            V1Pod pod = target.getResilientClient().call("readPod",
+                    () -> target.requestApi().readNamespacedPod(podName, target.getNamespace(), null));
             V1PodStatus status = pod.getStatus();
 
             if (status != null && status.getPhase() != null) {
@@ -110,66 +152,136 @@ public class KubernetesService {
 
                 if ("Succeeded".equals(phase)) {
                     // Get pod logs
-                    return getPodLogs(podName);
+                    return new ExecutionResult(getPodLogs(target, podName, executionId, true),
+                            containerExitCode(status));
                 } else if ("Failed".equals(phase)) {
-                    String logs = getPodLogs(podName);
-                    return "Pod execution failed. Logs: " + logs;
+                    CapturedOutput logs = getPodLogs(target, podName, executionId, true);
+                    return new ExecutionResult(new CapturedOutput("Pod execution failed. Logs: " + logs.text(),
+                            logs.totalBytes(), logs.elided(), logs.file()), containerExitCode(status));
                 }
             }
 
-            Thread.sleep(waitInterval * 1000);
+            // Sleep until the next poll, waking up early on cancellation
+            if (handle.awaitCancel(waitInterval, TimeUnit.SECONDS)) {
+                logger.info("Execution {} cancelled, stopping pod {}", executionId, podName);
+                return new ExecutionResult(getPodLogs(target, podName, executionId, false), null, true);
+            }
             elapsedTime += waitInterval;
         }
 
-        return "Pod execution timed out after " + maxWaitTime + " seconds";
+        return ExecutionResult.message("Pod execution timed out after " + maxWaitSeconds + " seconds");
     }
 
-    private String getPodLogs(String podName) {
-        try {
-            String logs = coreV1Api.readNamespacedPodLog(
-                    podName,
-                    namespace,
-                    null, // container name (null for single container pod)
-                    false, // follow
-                    null, // limitBytes
-                    null, // pretty
-                    false, // previous
-                    null, // sinceSeconds
-                    null, // tailLines
-                    false // timestamps
-            );
-            return logs != null ? logs.trim() : "No output";
-        } catch (ApiException e) {
+    static Integer containerExitCode(V1PodStatus status) {
+        if (status.getContainerStatuses() == null) {
+            return null;
+        }
+        return status.getContainerStatuses().stream()
+                .filter(container -> container.getState() != null && container.getState().getTerminated() != null)
+                .map(container -> container.getState().getTerminated().getExitCode())
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Capture the log of the task container; with follow, until the container
+     * exits, otherwise what it has written so far.
+     */
+    private CapturedOutput getPodLogs(ExecutionTarget target, String podName, String executionId, boolean follow) {
+        // Stream the log into a capture instead of reading it as one String
+        OutputCapture capture = outputStorageService.newCapture(executionId);
+        try (InputStream logs = target.getResilientClient().call("streamPodLog",
+                () -> follow ? openLogStream(target, podName) : openLogSnapshot(target, podName))) {
+            logs.transferTo(capture);
+            CapturedOutput captured = capture.finish();
+            if (captured.totalBytes() == 0) {
+                return new CapturedOutput("No output", 0, false, null);
+            }
+            return new CapturedOutput(captured.text().trim(), captured.totalBytes(), captured.elided(), captured.file());
+        } catch (ApiException | IOException | RuntimeException e) {
             logger.error("Failed to get pod logs for {}", podName, e);
-            return "Failed to retrieve pod logs: " + e.getMessage();
+            discard(capture);
+            String text = "Failed to retrieve pod logs: " + e.getMessage();
+            return new CapturedOutput(text, text.length(), false, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(capture);
+            return new CapturedOutput("Interrupted while retrieving pod logs", 0, false, null);
+        }
+    }
+
+    private InputStream openLogStream(ExecutionTarget target, String podName) throws ApiException {
+        try {
+            return target.podLogs().streamNamespacedPodLog(target.getNamespace(), podName, "task-container");
+        } catch (IOException e) {
+            // Report connection failures as retryable API errors
+            throw new ApiException(e);
+        }
+    }
+
+    /**
+     * Open the log the task container has written so far, without following it.
+     */
+    static InputStream openLogSnapshot(ExecutionTarget target, String podName) throws ApiException {
+        try {
+            Response response = target.requestApi().readNamespacedPodLogCall(podName, target.getNamespace(),
+                    "task-container", false, null, null, null, null, null, null, null, null).execute();
+            if (!response.isSuccessful()) {
+                int code = response.code();
+                response.close();
+                throw new ApiException(code, "Failed to read log of pod " + podName);
+            }
+            return response.body().byteStream();
+        } catch (IOException e) {
+            // Report connection failures as retryable API errors
+            throw new ApiException(e);
         }
     }
 
-    private void deletePod(String podName) {
+    private void discard(OutputCapture capture) {
         try {
-            coreV1Api.deleteNamespacedPod(
+            capture.discard();
+        } catch (IOException e) {
+            logger.warn("Failed to discard captured output: {}", e.getMessage());
+        }
+    }
+
+    private void deletePod(ExecutionTarget target, String podName, Integer gracePeriodSeconds) {
+        try {
+            target.getResilientClient().call("deletePod", () -> target.requestApi().deleteNamespacedPod(
                     podName,
-                    namespace,
+                    target.getNamespace(),
                     null, // pretty
                     null, // dryRun
-                    null, // gracePeriodSeconds
+                    gracePeriodSeconds,
                     null, // orphanDependents
                     null, // propagationPolicy
                     null // body
-            );
+            ));
             logger.info("Deleted pod: {}", podName);
-        } catch (ApiException e) {
+        } catch (ApiException | RuntimeException e) {
             logger.warn("Failed to delete pod {}: {}", podName, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while deleting pod {}", podName);
         }
     }
 
     /**
-     * List all task execution pods
+     * List all task execution pods of all targets
      */
     public String listTaskPods() {
+        StringBuilder result = new StringBuilder("Task Execution Pods:\n");
+        for (ExecutionTarget target : podPlacementService.getTargets()) {
+            result.append(listTaskPods(target));
+        }
+        return result.toString();
+    }
+
+    private String listTaskPods(ExecutionTarget target) {
         try {
-            V1PodList podList = coreV1Api.listNamespacedPod(
-                    namespace,
+            V1PodList podList = target.getResilientClient().call("listPods", () -> target.requestApi().listNamespacedPod(
+                    target.getNamespace(),
                     null, // pretty
                     null, // allowWatchBookmarks
                     null, // continue
@@ -178,22 +290,26 @@ public class KubernetesService {
                     null, // limit
                     null, // resourceVersion
                     null, // resourceVersionMatch
+                    null, // sendInitialEvents
                     null, // timeoutSeconds
                     false // watch
-            );
+            ));
 
-            StringBuilder result = new StringBuilder("Task Execution Pods:\n");
+            StringBuilder result = new StringBuilder();
             for (V1Pod pod : podList.getItems()) {
                 String name = pod.getMetadata().getName();
                 String phase = pod.getStatus() != null ? pod.getStatus().getPhase() : "Unknown";
                 OffsetDateTime creationTime = pod.getMetadata().getCreationTimestamp();
-                result.append(String.format("- %s (Phase: %s, Created: %s)\n", name, phase, creationTime));
+                result.append(String.format("- %s/%s (Phase: %s, Created: %s)\n", target, name, phase, creationTime));
             }
 
             return result.toString();
-        } catch (ApiException e) {
-            logger.error("Failed to list task pods", e);
-            return "Error listing task pods: " + e.getMessage();
+        } catch (ApiException | RuntimeException e) {
+            logger.error("Failed to list task pods in {}", target, e);
+            return "Error listing task pods in " + target + ": " + e.getMessage() + "\n";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted while listing task pods\n";
         }
     }
 }
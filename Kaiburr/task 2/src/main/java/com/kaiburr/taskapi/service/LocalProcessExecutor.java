@@ -0,0 +1,265 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutorBackend;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs commands as shell processes on the replica itself, without dedicating a
+ * blocked reader thread to each process. A single pump thread, started on
+ * first use, polls every running process for available output and enforces the
+ * wall-clock timeout, output cap and cancellation by killing the whole process
+ * tree.
+ *
+ * <p>Only for deployments where the replica is an acceptable place to run task
+ * commands; {@link TaskExecutorService} rejects it unless it is enabled.
+ */
+@Component
+public class LocalProcessExecutor implements TaskExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalProcessExecutor.class);
+
+    private static final int READ_CHUNK_BYTES = 8192;
+
+    private final OutputStorageService outputStorageService;
+    private final long timeoutMillis;
+    private final long maxOutputBytes;
+    private final long idlePollNanos;
+
+    private final List<RunningProcess> running = new CopyOnWriteArrayList<>();
+    private Thread pump;
+    private volatile boolean shutdown;
+
+    public LocalProcessExecutor(OutputStorageService outputStorageService,
+            @Value("${task.executor.local.timeout-seconds:60}") long timeoutSeconds,
+            @Value("${task.executor.local.max-output-bytes:268435456}") long maxOutputBytes,
+            @Value("${task.executor.local.pump-interval-millis:10}") long pumpIntervalMillis) {
+        this.outputStorageService = outputStorageService;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.maxOutputBytes = maxOutputBytes;
+        this.idlePollNanos = TimeUnit.MILLISECONDS.toNanos(pumpIntervalMillis);
+    }
+
+    @Override
+    public ExecutorBackend getBackend() {
+        return ExecutorBackend.LOCAL;
+    }
+
+    @Override
+    public Set<Capability> getCapabilities() {
+        return Set.of(Capability.STREAMING, Capability.CANCELLATION);
+    }
+
+    @Override
+    public ExecutionResult execute(String taskId, String command, ExecutionHandle handle) throws InterruptedException {
+        RunningProcess runningProcess;
+        try {
+            runningProcess = start(command, handle);
+        } catch (IOException e) {
+            logger.error("Failed to start command of task {}", taskId, e);
+            return ExecutionResult.message("Error starting command: " + e.getMessage());
+        }
+
+        try {
+            return runningProcess.result.get();
+        } catch (InterruptedException e) {
+            runningProcess.kill();
+            throw e;
+        } catch (ExecutionException e) {
+            return ExecutionResult.message("Unexpected error: " + e.getCause().getMessage());
+        }
+    }
+
+    private RunningProcess start(String command, ExecutionHandle handle) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder();
+
+        // Set up command based on OS
+        String os = System.getProperty("os.name").toLowerCase();
+        if (os.contains("win")) {
+            processBuilder.command("cmd", "/c", command);
+        } else {
+            processBuilder.command("sh", "-c", command);
+        }
+
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectInput(ProcessBuilder.Redirect.from(nullDevice(os)));
+
+        RunningProcess runningProcess = new RunningProcess(processBuilder.start(), handle,
+                outputStorageService.newCapture(handle.getExecutionId()), System.currentTimeMillis() + timeoutMillis);
+        running.add(runningProcess);
+        LockSupport.unpark(pump());
+        return runningProcess;
+    }
+
+    private synchronized Thread pump() {
+        if (pump == null) {
+            pump = new Thread(this::pumpLoop, "process-output-pump");
+            pump.setDaemon(true);
+            pump.start();
+        }
+        return pump;
+    }
+
+    private void pumpLoop() {
+        byte[] chunk = new byte[READ_CHUNK_BYTES];
+        while (!shutdown) {
+            if (running.isEmpty()) {
+                // Nothing to watch: sleep until the next process is started
+                LockSupport.park();
+                continue;
+            }
+            boolean progressed = false;
+            for (RunningProcess runningProcess : running) {
+                try {
+                    progressed |= runningProcess.pump(chunk);
+                } catch (RuntimeException | IOException e) {
+                    logger.warn("Failed to pump process output: {}", e.getMessage());
+                    runningProcess.kill();
+                    runningProcess.finish(null);
+                }
+                if (runningProcess.result.isDone()) {
+                    running.remove(runningProcess);
+                }
+            }
+            if (!progressed) {
+                LockSupport.parkNanos(idlePollNanos);
+            }
+        }
+    }
+
+    private static File nullDevice(String os) {
+        return new File(os.contains("win") ? "NUL" : "/dev/null");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        for (RunningProcess runningProcess : running) {
+            runningProcess.kill();
+            runningProcess.finish(null);
+        }
+        running.clear();
+        synchronized (this) {
+            if (pump != null) {
+                LockSupport.unpark(pump);
+            }
+        }
+    }
+
+    private final class RunningProcess {
+
+        private final Process process;
+        private final ExecutionHandle handle;
+        private final InputStream output;
+        private final long deadline;
+        private final OutputCapture capture;
+        private final CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+        private boolean timedOut;
+        private boolean truncated;
+        private boolean cancelled;
+
+        RunningProcess(Process process, ExecutionHandle handle, OutputCapture capture, long deadline) {
+            this.process = process;
+            this.handle = handle;
+            this.capture = capture;
+            this.output = process.getInputStream();
+            this.deadline = deadline;
+        }
+
+        /**
+         * Copy whatever output is available without blocking and enforce the
+         * limits. Returns true if any bytes were read.
+         */
+        boolean pump(byte[] chunk) throws IOException {
+            boolean progressed = drainAvailable(chunk);
+
+            if (!process.isAlive()) {
+                // The exited process may have left output in the pipe; a background
+                // child still holding the pipe open must not keep us waiting
+                drainAvailable(chunk);
+                finish(process.exitValue());
+                return true;
+            }
+
+            if (handle.isCancelled()) {
+                logger.info("Execution {} cancelled, killing process tree", handle.getExecutionId());
+                cancelled = true;
+                kill();
+                finish(null);
+            } else if (truncated) {
+                logger.warn("Command exceeded {} bytes of output, killing process tree", maxOutputBytes);
+                kill();
+                finish(null);
+            } else if (System.currentTimeMillis() > deadline) {
+                timedOut = true;
+                kill();
+                finish(null);
+            }
+            return progressed;
+        }
+
+        private boolean drainAvailable(byte[] chunk) throws IOException {
+            boolean progressed = false;
+            int available;
+            while (!truncated && (available = output.available()) > 0) {
+                int read = output.read(chunk, 0, Math.min(available, chunk.length));
+                if (read <= 0) {
+                    break;
+                }
+                long room = maxOutputBytes - capture.getTotalBytes();
+                capture.write(chunk, 0, (int) Math.min(read, room));
+                truncated = read > room;
+                progressed = true;
+            }
+            return progressed;
+        }
+
+        void kill() {
+            process.toHandle().descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        void finish(Integer exitCode) {
+            try {
+                output.close();
+            } catch (IOException ignored) {
+                // Nothing left to read
+            }
+
+            CapturedOutput captured;
+            try {
+                captured = capture.finish();
+            } catch (IOException e) {
+                logger.warn("Failed to store command output: {}", e.getMessage());
+                captured = new CapturedOutput("Failed to store command output: " + e.getMessage(),
+                        capture.getTotalBytes(), true, null);
+            }
+
+            String notice = null;
+            if (timedOut) {
+                notice = "Command timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis) + " seconds";
+            } else if (truncated) {
+                notice = "Output truncated after " + maxOutputBytes + " bytes";
+            }
+            if (notice != null) {
+                captured = new CapturedOutput(captured.text().stripTrailing() + "\n" + notice,
+                        captured.totalBytes(), captured.elided(), captured.file());
+            }
+            result.complete(new ExecutionResult(captured, exitCode, cancelled));
+        }
+    }
+}
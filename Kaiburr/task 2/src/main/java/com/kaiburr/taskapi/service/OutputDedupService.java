@@ -0,0 +1,329 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.OutputBlob;
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content-addressed storage for execution outputs. An output identical to an
+ * earlier one is stored as a reference to the same blob; an output close to
+ * the task's previous output is stored as a delta against that output's blob.
+ * Deltas always point at a whole blob, so rebuilding an output reads at most
+ * one blob. Blobs no task references any more are deleted with their task,
+ * or later by the periodic sweep.
+ *
+ * <p>Outputs are not rebuilt by entity conversion: read paths that return
+ * outputs call {@link #resolve(List)}, once per page of tasks.
+ */
+@Service
+public class OutputDedupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputDedupService.class);
+
+    private static final String SWEEP_LEASE_ID = "output-blob-sweep";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Value("${task.output.dedup.enabled:true}")
+    private boolean enabled;
+
+    // A delta is only kept if it is smaller than this fraction of the output
+    @Value("${task.output.dedup.max-delta-ratio:0.5}")
+    private double maxDeltaRatio;
+
+    // Blobs used more recently than this are never deleted
+    @Value("${task.output.dedup.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${task.output.dedup.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    // Blobs are immutable, so cached content never goes stale
+    private final Map<String, String> blobCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > 1024;
+                }
+            });
+
+    /**
+     * Replace the inline output of a new execution with a blob reference or a
+     * delta against the output of the task's previous execution.
+     */
+    public void deduplicate(String taskId, TaskExecution execution) {
+        String output = execution.getOutput();
+        if (!enabled || output == null || output.isEmpty()) {
+            return;
+        }
+
+        String hash = sha256(output);
+        if (touchBlob(hash)) {
+            execution.setOutputHash(hash);
+            execution.setOutput(null);
+            return;
+        }
+
+        String baseHash = previousBaseHash(taskId);
+        String base = baseHash != null ? loadBlobs(Set.of(baseHash)).get(baseHash) : null;
+        if (base != null) {
+            String delta = OutputDelta.encode(base, output);
+            if (delta.length() < output.length() * maxDeltaRatio && touchBlob(baseHash)) {
+                execution.setOutputBaseHash(baseHash);
+                execution.setOutputDelta(delta);
+                execution.setOutput(null);
+                return;
+            }
+        }
+
+        // Too different from the previous output: store it whole as the new base
+        storeBlob(hash, output);
+        execution.setOutputHash(hash);
+        execution.setOutput(null);
+    }
+
+    /**
+     * Rebuild the outputs of a task read from the database.
+     */
+    public Task resolve(Task task) {
+        resolve(List.of(task));
+        return task;
+    }
+
+    /**
+     * Rebuild the outputs of tasks read from the database, loading the blobs
+     * of all of them with one query.
+     */
+    public List<Task> resolve(List<Task> tasks) {
+        Set<String> hashes = new HashSet<>();
+        for (Task task : tasks) {
+            for (TaskExecution execution : executionsOf(task)) {
+                if (execution.getOutput() == null) {
+                    if (execution.getOutputHash() != null) {
+                        hashes.add(execution.getOutputHash());
+                    } else if (execution.getOutputBaseHash() != null) {
+                        hashes.add(execution.getOutputBaseHash());
+                    }
+                }
+            }
+        }
+        if (hashes.isEmpty()) {
+            return tasks;
+        }
+
+        Map<String, String> blobs = loadBlobs(hashes);
+        for (Task task : tasks) {
+            for (TaskExecution execution : executionsOf(task)) {
+                if (execution.getOutput() != null) {
+                    continue;
+                }
+                if (execution.getOutputHash() != null) {
+                    execution.setOutput(blobs.get(execution.getOutputHash()));
+                } else if (execution.getOutputBaseHash() != null && blobs.containsKey(execution.getOutputBaseHash())) {
+                    execution.setOutput(OutputDelta.decode(blobs.get(execution.getOutputBaseHash()),
+                            execution.getOutputDelta()));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private static List<TaskExecution> executionsOf(Task task) {
+        return task.getTaskExecutions() != null ? task.getTaskExecutions() : List.of();
+    }
+
+    private String previousBaseHash(String taskId) {
+        Query query = new Query(Criteria.where("_id").is(taskId));
+        query.fields().slice("taskExecutions", -1);
+        Document task = mongoTemplate.findOne(query, Document.class, "tasks");
+        if (task == null) {
+            return null;
+        }
+        List<Document> executions = task.getList("taskExecutions", Document.class);
+        if (executions == null || executions.isEmpty()) {
+            return null;
+        }
+        Document previous = executions.get(executions.size() - 1);
+        String hash = previous.getString("outputHash");
+        return hash != null ? hash : previous.getString("outputBaseHash");
+    }
+
+    /**
+     * Delete the blobs that only the executions of a deleted task referenced.
+     * Blobs used within the grace period are left alone, as an execution
+     * referencing them may still be on its way to another task.
+     */
+    public void release(Collection<TaskExecution> executions) {
+        Set<String> hashes = new HashSet<>();
+        for (TaskExecution execution : executions) {
+            if (execution.getOutputHash() != null) {
+                hashes.add(execution.getOutputHash());
+            }
+            if (execution.getOutputBaseHash() != null) {
+                hashes.add(execution.getOutputBaseHash());
+            }
+        }
+        if (hashes.isEmpty()) {
+            return;
+        }
+        hashes.removeAll(referenced(hashes));
+        deleteUnused(hashes);
+    }
+
+    /**
+     * Delete the blobs no task references any more, such as those of the
+     * executions removed by retention. Only one replica sweeps at a time, and
+     * blobs used within the grace period are kept.
+     */
+    @Scheduled(fixedDelayString = "${task.output.dedup.sweep-interval-millis:3600000}",
+            initialDelayString = "${task.output.dedup.sweep-initial-delay-millis:300000}")
+    public void sweep() {
+        Optional<TaskLease> lease = taskLeaseService.tryAcquire(SWEEP_LEASE_ID);
+        if (lease.isEmpty()) {
+            return;
+        }
+        try {
+            long deleted = 0;
+            String after = null;
+            Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+            while (true) {
+                Criteria criteria = new Criteria().orOperator(
+                        Criteria.where("lastUsedAt").lt(cutoff),
+                        Criteria.where("lastUsedAt").exists(false).and("createdAt").lt(cutoff));
+                if (after != null) {
+                    criteria = criteria.and("_id").gt(after);
+                }
+                Query query = new Query(criteria).with(Sort.by("_id")).limit(sweepBatchSize);
+                query.fields().include("_id");
+                List<String> hashes = mongoTemplate.find(query, OutputBlob.class).stream()
+                        .map(OutputBlob::getHash)
+                        .toList();
+                if (hashes.isEmpty()) {
+                    break;
+                }
+                Set<String> unreferenced = new HashSet<>(hashes);
+                unreferenced.removeAll(referenced(hashes));
+                deleted += deleteUnused(unreferenced);
+                after = hashes.get(hashes.size() - 1);
+            }
+            if (deleted > 0) {
+                logger.info("Deleted {} unreferenced output blobs", deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Output blob sweep failed: {}", e.getMessage());
+        } finally {
+            taskLeaseService.release(lease.get());
+        }
+    }
+
+    /**
+     * The hashes among the given ones that some task still references.
+     */
+    private Set<String> referenced(Collection<String> hashes) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("taskExecutions.outputHash").in(hashes),
+                Criteria.where("taskExecutions.outputBaseHash").in(hashes)));
+        Set<String> referenced = new HashSet<>();
+        referenced.addAll(mongoTemplate.findDistinct(query, "taskExecutions.outputHash", Task.class, String.class));
+        referenced.addAll(mongoTemplate.findDistinct(query, "taskExecutions.outputBaseHash", Task.class, String.class));
+        referenced.retainAll(hashes);
+        return referenced;
+    }
+
+    private long deleteUnused(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+        Query query = new Query(Criteria.where("_id").in(hashes).orOperator(
+                Criteria.where("lastUsedAt").lt(cutoff),
+                Criteria.where("lastUsedAt").exists(false).and("createdAt").lt(cutoff)));
+        long deleted = mongoTemplate.remove(query, OutputBlob.class).getDeletedCount();
+        hashes.forEach(blobCache::remove);
+        return deleted;
+    }
+
+    /**
+     * Mark a blob as used by a new execution. Returns false if it doesn't
+     * exist (any more).
+     */
+    private boolean touchBlob(String hash) {
+        return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(hash)),
+                new Update().set("lastUsedAt", Instant.now()), OutputBlob.class).getMatchedCount() > 0;
+    }
+
+    private void storeBlob(String hash, String content) {
+        // Upsert so two replicas storing the same output at once don't collide
+        Instant now = Instant.now();
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(hash)),
+                new Update().setOnInsert("content", content).setOnInsert("createdAt", now).set("lastUsedAt", now),
+                OutputBlob.class);
+        blobCache.put(hash, content);
+    }
+
+    private Map<String, String> loadBlobs(Set<String> hashes) {
+        Map<String, String> blobs = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String hash : hashes) {
+            String content = blobCache.get(hash);
+            if (content != null) {
+                blobs.put(hash, content);
+            } else {
+                missing.add(hash);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (OutputBlob blob : mongoTemplate.find(new Query(Criteria.where("_id").in(missing)), OutputBlob.class)) {
+                blobs.put(blob.getHash(), blob.getContent());
+                blobCache.put(blob.getHash(), blob.getContent());
+            }
+            if (blobs.size() < hashes.size()) {
+                logger.warn("{} output blobs referenced by executions are missing", hashes.size() - blobs.size());
+            }
+        }
+        return blobs;
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.kaiburr.taskapi.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copy/insert delta between two strings. The encoded delta is a sequence of
+ * {@code C<offset>,<length>;} (copy from the base) and {@code I<length>:<text>}
+ * (insert literal text) operations.
+ */
+final class OutputDelta {
+
+    private static final int BLOCK = 16;
+
+    private OutputDelta() {
+    }
+
+    /**
+     * Encode {@code target} as a delta against {@code base}. Matches are found by
+     * indexing the base in fixed blocks and extending every hit in both
+     * directions, which is linear in practice for near-identical outputs.
+     */
+    static String encode(String base, String target) {
+        Map<String, Integer> blocks = new HashMap<>();
+        for (int i = 0; i + BLOCK <= base.length(); i += BLOCK) {
+            blocks.putIfAbsent(base.substring(i, i + BLOCK), i);
+        }
+
+        StringBuilder delta = new StringBuilder();
+        int literalStart = 0;
+        int position = 0;
+        while (position + BLOCK <= target.length()) {
+            Integer match = blocks.get(target.substring(position, position + BLOCK));
+            if (match == null) {
+                position++;
+                continue;
+            }
+
+            // Extend backwards into the pending literal and forwards past the block
+            int baseStart = match;
+            int targetStart = position;
+            while (baseStart > 0 && targetStart > literalStart
+                    && base.charAt(baseStart - 1) == target.charAt(targetStart - 1)) {
+                baseStart--;
+                targetStart--;
+            }
+            int length = position - targetStart + BLOCK;
+            while (baseStart + length < base.length() && targetStart + length < target.length()
+                    && base.charAt(baseStart + length) == target.charAt(targetStart + length)) {
+                length++;
+            }
+
+            appendInsert(delta, target, literalStart, targetStart);
+            delta.append('C').append(baseStart).append(',').append(length).append(';');
+            position = targetStart + length;
+            literalStart = position;
+        }
+        appendInsert(delta, target, literalStart, target.length());
+        return delta.toString();
+    }
+
+    /**
+     * Rebuild the target from its base and delta.
+     */
+    static String decode(String base, String delta) {
+        StringBuilder target = new StringBuilder();
+        int position = 0;
+        while (position < delta.length()) {
+            char op = delta.charAt(position);
+            if (op == 'C') {
+                int comma = delta.indexOf(',', position);
+                int end = delta.indexOf(';', comma);
+                int offset = Integer.parseInt(delta, position + 1, comma, 10);
+                int length = Integer.parseInt(delta, comma + 1, end, 10);
+                target.append(base, offset, offset + length);
+                position = end + 1;
+            } else if (op == 'I') {
+                int colon = delta.indexOf(':', position);
+                int length = Integer.parseInt(delta, position + 1, colon, 10);
+                target.append(delta, colon + 1, colon + 1 + length);
+                position = colon + 1 + length;
+            } else {
+                throw new IllegalArgumentException("Corrupt output delta at offset " + position);
+            }
+        }
+        return target.toString();
+    }
+
+    private static void appendInsert(StringBuilder delta, String target, int start, int end) {
+        if (end > start) {
+            delta.append('I').append(end - start).append(':').append(target, start, end);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.OwnerQuota;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Administration of per-owner quotas at {@code /actuator/ownerquotas/{owner}}.
+ * Quotas change what every owner may do, so they are managed with the other
+ * operator endpoints rather than under {@code /api}; expose and protect them
+ * with the {@code management.*} settings. Served by both the blocking and the
+ * reactive stack, which run operations off the event loop.
+ */
+@Component
+@Endpoint(id = "ownerquotas")
+public class OwnerQuotaEndpoint {
+
+    @Autowired
+    private OwnerQuotaService ownerQuotaService;
+
+    /**
+     * Quota stored for an owner; 404 when the owner uses the defaults.
+     */
+    @ReadOperation
+    public OwnerQuota quota(@Selector String owner) {
+        return ownerQuotaService.getQuota(owner).orElse(null);
+    }
+
+    /**
+     * Set the request rate, burst and execution weight of an owner. Unset
+     * values use the defaults; other replicas apply the change within
+     * {@code task.quota.cache-seconds}.
+     */
+    @WriteOperation
+    public OwnerQuota saveQuota(@Selector String owner, @Nullable Double rate, @Nullable Integer burst,
+            @Nullable Integer weight) {
+        if (rate != null && rate <= 0) {
+            throw new InvalidEndpointRequestException("Quota rate must be positive", "Invalid rate");
+        }
+        if (burst != null && burst < 1) {
+            throw new InvalidEndpointRequestException("Quota burst must be at least 1", "Invalid burst");
+        }
+        if (weight != null && weight < 1) {
+            throw new InvalidEndpointRequestException("Quota weight must be at least 1", "Invalid weight");
+        }
+        return ownerQuotaService.saveQuota(new OwnerQuota(owner, rate, burst, weight));
+    }
+}
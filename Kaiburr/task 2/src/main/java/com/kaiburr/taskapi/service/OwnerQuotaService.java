@@ -0,0 +1,76 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.OwnerQuota;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-owner quotas stored in Mongo, so every replica enforces the same limits.
+ * Quotas are cached for {@code task.quota.cache-seconds}; a change made on
+ * one replica reaches the others within that time.
+ */
+@Service
+public class OwnerQuotaService {
+
+    /**
+     * Effective limits of an owner, with defaults applied.
+     */
+    public record Limits(double rate, int burst, int weight) {
+    }
+
+    private record CachedLimits(Limits limits, long loadedAt) {
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${task.quota.default-rate:20}")
+    private double defaultRate;
+
+    @Value("${task.quota.default-burst:40}")
+    private int defaultBurst;
+
+    @Value("${task.quota.default-weight:1}")
+    private int defaultWeight;
+
+    @Value("${task.quota.cache-seconds:30}")
+    private long cacheSeconds;
+
+    private final Map<String, CachedLimits> cache = new ConcurrentHashMap<>();
+
+    public Optional<OwnerQuota> getQuota(String owner) {
+        return Optional.ofNullable(mongoTemplate.findById(owner, OwnerQuota.class));
+    }
+
+    public OwnerQuota saveQuota(OwnerQuota quota) {
+        OwnerQuota saved = mongoTemplate.save(quota);
+        cache.remove(quota.getOwner());
+        return saved;
+    }
+
+    public Limits limitsFor(String owner) {
+        long now = System.nanoTime();
+        CachedLimits cached = cache.get(owner);
+        if (cached == null || now - cached.loadedAt() > cacheSeconds * 1_000_000_000L) {
+            cached = new CachedLimits(toLimits(getQuota(owner).orElse(null)), now);
+            cache.put(owner, cached);
+        }
+        return cached.limits();
+    }
+
+    private Limits toLimits(OwnerQuota quota) {
+        if (quota == null) {
+            return new Limits(defaultRate, defaultBurst, defaultWeight);
+        }
+        return new Limits(
+                quota.getRate() != null ? quota.getRate() : defaultRate,
+                quota.getBurst() != null ? quota.getBurst() : defaultBurst,
+                quota.getWeight() != null ? quota.getWeight() : defaultWeight);
+    }
+}
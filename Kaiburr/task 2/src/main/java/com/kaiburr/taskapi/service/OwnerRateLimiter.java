@@ -0,0 +1,215 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.RateLimitExceededException;
+import com.kaiburr.taskapi.model.OwnerRateWindow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-owner request rate limiting for write and execute requests.
+ *
+ * <p>Each owner has a token bucket ({@code rate} per second, up to
+ * {@code burst} tokens) on every replica, taken with a compare-and-set and no
+ * locking. To hold the rate across replicas, a request also needs a token
+ * leased from a shared Mongo counter of the current window. Leases are taken
+ * in batches, so most requests never touch Mongo; tokens leased but not used
+ * before the window ends are lost, which errs on the side of admitting less.
+ *
+ * <p>If Mongo cannot be reached, only the local buckets are enforced.
+ */
+@Service
+public class OwnerRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerRateLimiter.class);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OwnerQuotaService ownerQuotaService;
+
+    private final boolean enabled;
+    private final long windowSeconds;
+    private final double leaseFraction;
+    private final Map<String, OwnerBucket> buckets = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    public OwnerRateLimiter(
+            @Value("${task.quota.enabled:true}") boolean enabled,
+            @Value("${task.quota.window-seconds:10}") long windowSeconds,
+            @Value("${task.quota.lease-fraction:0.1}") double leaseFraction,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowSeconds = windowSeconds;
+        this.leaseFraction = leaseFraction;
+        this.rejected = Counter.builder("task.quota.rejected")
+                .description("Requests rejected by the per-owner rate limit").register(meterRegistry);
+    }
+
+    /**
+     * Take one request token of an owner.
+     *
+     * @throws RateLimitExceededException if the owner is over its rate
+     */
+    public void acquire(String owner) {
+        if (!enabled) {
+            return;
+        }
+        String key = owner != null ? owner : "";
+        OwnerQuotaService.Limits limits = ownerQuotaService.limitsFor(key);
+        OwnerBucket bucket = buckets.computeIfAbsent(key, k -> new OwnerBucket(limits.burst()));
+
+        long waitNanos = bucket.tryTake(limits.rate(), limits.burst(), System.nanoTime());
+        if (waitNanos > 0) {
+            throw rejected(key, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+        }
+
+        long window = Instant.now().getEpochSecond() / windowSeconds;
+        if (!takeShared(key, bucket, limits, window)) {
+            bucket.refund(limits.burst());
+            throw rejected(key, (window + 1) * windowSeconds - Instant.now().getEpochSecond());
+        }
+    }
+
+    private RateLimitExceededException rejected(String owner, long retryAfterSeconds) {
+        rejected.increment();
+        return new RateLimitExceededException("Rate limit exceeded for owner '" + owner + "'", Math.max(1, retryAfterSeconds));
+    }
+
+    private boolean takeShared(String owner, OwnerBucket bucket, OwnerQuotaService.Limits limits, long window) {
+        Boolean taken = bucket.takeLeased(window);
+        if (taken != null) {
+            return taken;
+        }
+        // One lease request per owner at a time; the others wait for its result
+        synchronized (bucket) {
+            taken = bucket.takeLeased(window);
+            if (taken != null) {
+                return taken;
+            }
+            long allowance = (long) Math.ceil(limits.rate() * windowSeconds);
+            long size = Math.max(1, Math.min(limits.burst(), (long) Math.ceil(allowance * leaseFraction)));
+            long granted;
+            try {
+                granted = lease(owner, allowance, size, window);
+            } catch (DataAccessException e) {
+                logger.warn("Could not lease rate limit tokens of owner {}, enforcing local limit only: {}",
+                        owner, e.getMessage());
+                return true;
+            }
+            // A partial grant means the window's allowance is used up
+            bucket.setLease(window, granted, granted < size);
+            return bucket.takeLeased(window) == Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Reserve a batch of tokens of the window in the shared counter and return
+     * how many of them were still within the owner's allowance.
+     */
+    private long lease(String owner, long allowance, long size, long window) {
+        Query query = new Query(Criteria.where("_id").is(owner + "@" + window));
+        Update update = new Update()
+                .inc("used", size)
+                .setOnInsert("expiresAt", Instant.ofEpochSecond((window + 2) * windowSeconds));
+
+        OwnerRateWindow counter;
+        try {
+            counter = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), OwnerRateWindow.class);
+        } catch (DuplicateKeyException e) {
+            // Another replica created the window document first
+            counter = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), OwnerRateWindow.class);
+        }
+        long usedBefore = counter.getUsed() - size;
+        return Math.max(0, Math.min(size, allowance - usedBefore));
+    }
+
+    /**
+     * Local token bucket of one owner, plus the tokens leased from the shared
+     * counter for the current window.
+     */
+    static final class OwnerBucket {
+
+        private record State(double tokens, long refilledAt) {
+        }
+
+        private record Lease(long window, AtomicLong remaining, boolean last) {
+        }
+
+        private final AtomicReference<State> state;
+        private final AtomicReference<Lease> lease = new AtomicReference<>(new Lease(-1, new AtomicLong(), false));
+
+        OwnerBucket(int burst) {
+            this.state = new AtomicReference<>(new State(burst, System.nanoTime()));
+        }
+
+        /**
+         * Take a token.
+         *
+         * @return 0 if taken, otherwise the nanoseconds until one is available
+         */
+        long tryTake(double rate, int burst, long now) {
+            while (true) {
+                State current = state.get();
+                long refilledAt = Math.max(now, current.refilledAt());
+                double tokens = Math.min(burst, current.tokens() + Math.max(0, now - current.refilledAt()) * rate / NANOS_PER_SECOND);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / rate * NANOS_PER_SECOND);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, refilledAt))) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund(int burst) {
+            state.updateAndGet(current -> new State(Math.min(burst, current.tokens() + 1), current.refilledAt()));
+        }
+
+        /**
+         * Take a leased token of the window.
+         *
+         * @return true if taken, false if the window's allowance is used up, or
+         *         null if more tokens must be leased first
+         */
+        Boolean takeLeased(long window) {
+            Lease current = lease.get();
+            if (current.window() != window) {
+                return null;
+            }
+            long remaining;
+            do {
+                remaining = current.remaining().get();
+                if (remaining <= 0) {
+                    return current.last() ? Boolean.FALSE : null;
+                }
+            } while (!current.remaining().compareAndSet(remaining, remaining - 1));
+            return Boolean.TRUE;
+        }
+
+        void setLease(long window, long tokens, boolean last) {
+            lease.set(new Lease(window, new AtomicLong(tokens), last));
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutionStatus;
+import com.kaiburr.taskapi.model.PipelineEvent;
+import com.kaiburr.taskapi.model.TaskExecution;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a task together with everything it depends on, as a DAG.
+ *
+ * <p>Every task starts on its own virtual thread as soon as all of its
+ * dependencies have succeeded, so independent branches run in parallel and
+ * the whole run takes about as long as its critical path. When a task fails,
+ * the tasks downstream of it are skipped while unrelated branches go on. Each
+ * task is executed like a single execute call and stores a normal execution.
+ */
+@Service
+public class PipelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineService.class);
+
+    /**
+     * Executes one task of a pipeline and returns its stored execution.
+     */
+    public interface NodeExecutor {
+
+        ExecutedTask execute(String taskId) throws Exception;
+    }
+
+    /**
+     * Receives the events of a pipeline run, one at a time.
+     */
+    public interface Listener {
+
+        void onEvent(PipelineEvent event) throws IOException;
+
+        /**
+         * Called once after the last event.
+         */
+        void onClose();
+    }
+
+    /**
+     * A pipeline run in progress.
+     */
+    public interface Run {
+
+        /**
+         * Stop starting tasks; tasks already running finish normally.
+         */
+        void cancel();
+    }
+
+    @Autowired
+    private TaskService taskService;
+
+    private final ExecutorService nodes = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Load the pipeline ending in the given task.
+     *
+     * @return each task of the pipeline mapped to the tasks it depends on
+     * @throws IllegalArgumentException if the dependencies are missing, too many or cyclic
+     */
+    public Map<String, List<String>> plan(String taskId) {
+        Map<String, List<String>> graph = taskService.loadDependencyGraph(List.of(taskId));
+
+        // Dependencies are checked on save, but concurrent saves can still close a cycle
+        Map<String, Integer> remaining = new HashMap<>();
+        Map<String, List<String>> dependents = dependents(graph);
+        Deque<String> ready = new ArrayDeque<>();
+        graph.forEach((id, dependencies) -> {
+            remaining.put(id, dependencies.size());
+            if (dependencies.isEmpty()) {
+                ready.add(id);
+            }
+        });
+        int ordered = 0;
+        while (!ready.isEmpty()) {
+            ordered++;
+            for (String dependent : dependents.get(ready.poll())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ordered < graph.size()) {
+            throw new IllegalArgumentException("Dependencies of task " + taskId + " form a cycle");
+        }
+        return graph;
+    }
+
+    /**
+     * Start running a planned pipeline. Events are delivered to the listener
+     * from the threads running the tasks.
+     */
+    public Run run(String taskId, Map<String, List<String>> graph, NodeExecutor executor, Listener listener) {
+        PipelineRun run = new PipelineRun(taskId, graph, executor, listener);
+        run.start();
+        return run;
+    }
+
+    private static Map<String, List<String>> dependents(Map<String, List<String>> graph) {
+        Map<String, List<String>> dependents = new LinkedHashMap<>();
+        graph.keySet().forEach(id -> dependents.put(id, new ArrayList<>()));
+        graph.forEach((id, dependencies) -> dependencies.forEach(dependency -> dependents.get(dependency).add(id)));
+        return dependents;
+    }
+
+    private final class PipelineRun implements Run {
+
+        private final String taskId;
+        private final Map<String, List<String>> graph;
+        private final Map<String, List<String>> dependents;
+        private final NodeExecutor executor;
+        private final Listener listener;
+
+        private final Map<String, Integer> remaining = new HashMap<>();
+        private final Map<String, PipelineEvent.Status> statuses = new HashMap<>();
+        private int finished;
+        private boolean cancelled;
+
+        PipelineRun(String taskId, Map<String, List<String>> graph, NodeExecutor executor, Listener listener) {
+            this.taskId = taskId;
+            this.graph = graph;
+            this.dependents = dependents(graph);
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        synchronized void start() {
+            logger.info("Starting pipeline of task {} with {} tasks", taskId, graph.size());
+            graph.forEach((id, dependencies) -> {
+                remaining.put(id, dependencies.size());
+                statuses.put(id, PipelineEvent.Status.PENDING);
+                PipelineEvent event = new PipelineEvent(PipelineEvent.NODE, id, PipelineEvent.Status.PENDING);
+                event.setDependsOn(dependencies);
+                send(event);
+            });
+            graph.forEach((id, dependencies) -> {
+                if (dependencies.isEmpty()) {
+                    launch(id);
+                }
+            });
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+        }
+
+        private void launch(String id) {
+            if (cancelled) {
+                return;
+            }
+            statuses.put(id, PipelineEvent.Status.RUNNING);
+            send(new PipelineEvent(PipelineEvent.NODE, id, PipelineEvent.Status.RUNNING));
+            nodes.execute(() -> {
+                try {
+                    completed(id, executor.execute(id).execution(), null);
+                } catch (Exception e) {
+                    logger.warn("Pipeline task {} could not be executed: {}", id, e.getMessage());
+                    completed(id, null, e.getMessage());
+                }
+            });
+        }
+
+        private synchronized void completed(String id, TaskExecution execution, String error) {
+            boolean succeeded = execution != null && execution.getStatus() != ExecutionStatus.CANCELLED
+                    && Integer.valueOf(0).equals(execution.getExitCode());
+            PipelineEvent.Status status = succeeded ? PipelineEvent.Status.SUCCEEDED : PipelineEvent.Status.FAILED;
+            statuses.put(id, status);
+            finished++;
+
+            PipelineEvent event = new PipelineEvent(PipelineEvent.NODE, id, status);
+            if (execution != null) {
+                event.setExecutionId(execution.getId());
+                event.setExitCode(execution.getExitCode());
+                if (execution.getStatus() == ExecutionStatus.CANCELLED) {
+                    event.setMessage("Execution was cancelled");
+                }
+            } else {
+                event.setMessage(error);
+            }
+            send(event);
+
+            for (String dependent : dependents.get(id)) {
+                if (!succeeded) {
+                    skip(dependent, id);
+                } else if (remaining.merge(dependent, -1, Integer::sum) == 0
+                        && statuses.get(dependent) == PipelineEvent.Status.PENDING) {
+                    launch(dependent);
+                }
+            }
+            finishIfDone();
+        }
+
+        private void skip(String id, String failedDependency) {
+            if (statuses.get(id) != PipelineEvent.Status.PENDING) {
+                return;
+            }
+            statuses.put(id, PipelineEvent.Status.SKIPPED);
+            finished++;
+            PipelineEvent event = new PipelineEvent(PipelineEvent.NODE, id, PipelineEvent.Status.SKIPPED);
+            event.setMessage("Dependency " + failedDependency + " did not succeed");
+            send(event);
+            for (String dependent : dependents.get(id)) {
+                skip(dependent, failedDependency);
+            }
+        }
+
+        private void finishIfDone() {
+            // A cancelled run never starts its pending tasks, so it ends with the last running one
+            boolean done = finished == graph.size()
+                    || cancelled && !statuses.containsValue(PipelineEvent.Status.RUNNING);
+            if (!done) {
+                return;
+            }
+            long succeeded = statuses.values().stream().filter(PipelineEvent.Status.SUCCEEDED::equals).count();
+            PipelineEvent event = new PipelineEvent(PipelineEvent.PIPELINE_COMPLETED, taskId,
+                    succeeded == graph.size() ? PipelineEvent.Status.SUCCEEDED : PipelineEvent.Status.FAILED);
+            event.setMessage(succeeded + " of " + graph.size() + " tasks succeeded");
+            send(event);
+            logger.info("Pipeline of task {} finished: {}", taskId, event.getMessage());
+            listener.onClose();
+        }
+
+        private void send(PipelineEvent event) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                listener.onEvent(event);
+            } catch (IOException | RuntimeException e) {
+                // The client went away: let running tasks finish, start no others
+                logger.debug("Failed to send pipeline event of task {}: {}", taskId, e.getMessage());
+                cancelled = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        nodes.shutdown();
+    }
+}
@@ -0,0 +1,189 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.config.KubernetesClientFactory;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import io.kubernetes.client.openapi.ApiClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the namespace, and cluster, each execution pod is placed in.
+ *
+ * <p>Targets are configured in {@code kubernetes.targets} as a comma-separated
+ * list of {@code [context/]namespace[=weight]}, where {@code context} is a
+ * kubeconfig context (the default configuration when omitted) and
+ * {@code weight} the target's relative capacity. Each execution goes to the
+ * healthy target with the fewest executions in flight per unit of weight;
+ * targets whose client can't be created or whose circuit breaker is open are
+ * skipped until they recover. Without targets, every pod goes to
+ * {@code kubernetes.namespace}.
+ *
+ * <p>Targets in the same context share their API clients, rate limit and
+ * circuit breaker, as they talk to the same API server.
+ *
+ * <p>Pods also get the Kubernetes priority class configured for their
+ * execution priority in {@code kubernetes.priority-classes}, a comma-separated
+ * list of {@code PRIORITY=priorityClassName}, so a full cluster schedules, and
+ * if needed preempts for, the more important executions first.
+ */
+@Service
+public class PodPlacementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PodPlacementService.class);
+
+    private final List<ExecutionTarget> targets;
+    private final Map<ExecutionPriority, String> priorityClasses = new EnumMap<>(ExecutionPriority.class);
+    private final AtomicInteger nextTarget = new AtomicInteger();
+
+    public PodPlacementService(
+            @Value("${kubernetes.targets:}") String targetList,
+            @Value("${kubernetes.namespace:default}") String defaultNamespace,
+            @Value("${kubernetes.priority-classes:}") String priorityClassList,
+            KubernetesClientFactory clientFactory,
+            ObjectProvider<ResilientKubernetesClient> resilientClients,
+            MeterRegistry meterRegistry) {
+        Map<String, ContextClients> contexts = new HashMap<>();
+        List<ExecutionTarget> parsed = new ArrayList<>();
+        for (String entry : targetList.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int weight = 1;
+            int equals = entry.lastIndexOf('=');
+            if (equals >= 0) {
+                weight = Integer.parseInt(entry.substring(equals + 1).trim());
+                if (weight < 1) {
+                    throw new IllegalArgumentException("Weight of Kubernetes target " + entry + " must be at least 1");
+                }
+                entry = entry.substring(0, equals).trim();
+            }
+            int slash = entry.lastIndexOf('/');
+            String context = slash >= 0 ? entry.substring(0, slash) : null;
+            String namespace = entry.substring(slash + 1);
+            parsed.add(newTarget(context, namespace, weight, contexts, clientFactory, resilientClients));
+        }
+        if (parsed.isEmpty()) {
+            parsed.add(newTarget(null, defaultNamespace, 1, contexts, clientFactory, resilientClients));
+        }
+        this.targets = List.copyOf(parsed);
+
+        for (ExecutionTarget target : targets) {
+            Gauge.builder("kubernetes.target.in_flight", target, ExecutionTarget::getInFlight)
+                    .tag("target", target.getName())
+                    .description("Execution pods running in the target").register(meterRegistry);
+        }
+        logger.info("Execution pods are placed in {}", targets);
+
+        for (String entry : priorityClassList.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int equals = entry.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Priority class mapping " + entry + " must be PRIORITY=className");
+            }
+            priorityClasses.put(ExecutionPriority.valueOf(entry.substring(0, equals).trim()),
+                    entry.substring(equals + 1).trim());
+        }
+    }
+
+    /**
+     * Kubernetes priority class for pods of the given priority, or null to use
+     * the cluster default.
+     */
+    public String priorityClassName(ExecutionPriority priority) {
+        return priority != null ? priorityClasses.get(priority) : null;
+    }
+
+    private ExecutionTarget newTarget(String context, String namespace, int weight, Map<String, ContextClients> contexts,
+            KubernetesClientFactory clientFactory, ObjectProvider<ResilientKubernetesClient> resilientClients) {
+        ContextClients clients = contexts.computeIfAbsent(context == null ? "" : context,
+                key -> new ContextClients(context, clientFactory, resilientClients.getObject()));
+        return new ExecutionTarget(context, namespace, weight, clients.resilientClient,
+                clients::requestClient, clients::streamingClient);
+    }
+
+    public List<ExecutionTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Choose the target for a new execution pod and count the execution as in
+     * flight there. Every call must be matched by {@link #release}.
+     */
+    public ExecutionTarget acquire() {
+        ExecutionTarget target = leastLoaded(true);
+        if (target == null) {
+            // Nothing is healthy: keep placing so open circuits get their probe requests
+            target = leastLoaded(false);
+        }
+        target.started();
+        return target;
+    }
+
+    public void release(ExecutionTarget target) {
+        target.finished();
+    }
+
+    private ExecutionTarget leastLoaded(boolean healthyOnly) {
+        // Start the scan at a rotating offset, so equally loaded targets take turns
+        int offset = Math.floorMod(nextTarget.getAndIncrement(), targets.size());
+        ExecutionTarget best = null;
+        for (int i = 0; i < targets.size(); i++) {
+            ExecutionTarget candidate = targets.get((offset + i) % targets.size());
+            if (healthyOnly && !candidate.isHealthy()) {
+                continue;
+            }
+            if (best == null || candidate.load() < best.load()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * API clients of one kubeconfig context, built on first use.
+     */
+    private static final class ContextClients {
+
+        private final String context;
+        private final KubernetesClientFactory clientFactory;
+        private final ResilientKubernetesClient resilientClient;
+        private ApiClient requestClient;
+        private ApiClient streamingClient;
+
+        ContextClients(String context, KubernetesClientFactory clientFactory, ResilientKubernetesClient resilientClient) {
+            this.context = context;
+            this.clientFactory = clientFactory;
+            this.resilientClient = resilientClient;
+        }
+
+        synchronized ApiClient requestClient() {
+            if (requestClient == null) {
+                requestClient = clientFactory.requestClient(context);
+            }
+            return requestClient;
+        }
+
+        synchronized ApiClient streamingClient() {
+            if (streamingClient == null) {
+                streamingClient = clientFactory.streamingClient(context);
+            }
+            return streamingClient;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.kaiburr.taskapi.service;
+
+import com.google.gson.reflect.TypeToken;
+import io.kubernetes.client.openapi.ApiCallback;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import io.kubernetes.client.util.Watch;
+import jakarta.annotation.PreDestroy;
+import okhttp3.Call;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking Kubernetes execution for the reactive API.
+ *
+ * <p>Pod create and delete use the client's asynchronous calls. Pod state comes
+ * from a watch and logs from a follow stream, both exposed as {@link Flux}es.
+ * The client can only read those streams with blocking I/O, so they run on a
+ * small dedicated scheduler; request threads never wait on Kubernetes.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveKubernetesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveKubernetesService.class);
+
+    private static final List<String> TERMINAL_PHASES = List.of("Succeeded", "Failed");
+
+    @Value("${kubernetes.reactive.max-wait-seconds:60}")
+    private int maxWaitSeconds;
+
+    @Value("${kubernetes.client.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${kubernetes.client.initial-backoff-millis:200}")
+    private long initialBackoffMillis;
+
+    @Value("${kubernetes.client.max-backoff-millis:10000}")
+    private long maxBackoffMillis;
+
+    @Autowired
+    private OutputStorageService outputStorageService;
+
+    @Autowired
+    private PodPlacementService podPlacementService;
+
+    private final Scheduler streamScheduler;
+
+    public ReactiveKubernetesService(@Value("${kubernetes.reactive.stream-threads:32}") int streamThreads) {
+        this.streamScheduler = Schedulers.newBoundedElastic(streamThreads, Integer.MAX_VALUE, "kubernetes-stream");
+    }
+
+    /**
+     * Run a command in a busybox pod, in the namespace chosen by
+     * {@link PodPlacementService}: create it, wait for a terminal phase on a
+     * watch, then collect its log. The pod is deleted however the run ends, and
+     * without a grace period when the execution is cancelled.
+     */
+    public Mono<ExecutionResult> executeCommandInPod(String taskId, String command, ExecutionHandle handle) {
+        return Mono.usingWhen(
+                Mono.fromSupplier(podPlacementService::acquire),
+                target -> executeCommandInPod(target, taskId, command, handle),
+                target -> Mono.fromRunnable(() -> podPlacementService.release(target)));
+    }
+
+    private Mono<ExecutionResult> executeCommandInPod(ExecutionTarget target, String taskId, String command,
+            ExecutionHandle handle) {
+        String executionId = handle.getExecutionId();
+        String podName = "task-execution-" + taskId + "-" + System.currentTimeMillis();
+
+        Mono<ExecutionResult> completion = watchPod(target, podName)
+                .filter(pod -> pod.getStatus() != null && TERMINAL_PHASES.contains(pod.getStatus().getPhase()))
+                .next()
+                .timeout(Duration.ofSeconds(maxWaitSeconds))
+                .flatMap(pod -> collectLogs(target, podName, executionId, true)
+                        .map(logs -> result(pod.getStatus(), logs)))
+                .switchIfEmpty(Mono.fromSupplier(
+                        () -> ExecutionResult.message("Pod watch ended before pod " + podName + " completed")));
+        Mono<ExecutionResult> cancellation = Mono.fromFuture(handle.onCancel())
+                .then(Mono.defer(() -> {
+                    logger.info("Execution {} cancelled, stopping pod {}", executionId, podName);
+                    return collectLogs(target, podName, executionId, false);
+                }))
+                .map(logs -> new ExecutionResult(logs, null, true));
+
+        return createPod(target, KubernetesService.createTaskPod(podName, command,
+                        podPlacementService.priorityClassName(handle.getPriority())))
+                .doOnSuccess(pod -> logger.info("Created pod: {} in {}", podName, target))
+                // Whichever comes first: the pod terminates or the execution is cancelled
+                .then(Mono.firstWithSignal(completion, cancellation))
+                .onErrorResume(TimeoutException.class, e -> Mono.just(
+                        ExecutionResult.message("Pod execution timed out after " + maxWaitSeconds + " seconds")))
+                .onErrorResume(e -> {
+                    logger.error("Error while executing command in pod {}", podName, e);
+                    return Mono.just(ExecutionResult.message("Error executing command in Kubernetes pod: " + e.getMessage()));
+                })
+                .doFinally(signal -> deletePod(target, podName, handle.isCancelled() ? 0 : null).subscribe());
+    }
+
+    private ExecutionResult result(V1PodStatus status, CapturedOutput logs) {
+        if ("Failed".equals(status.getPhase())) {
+            logs = new CapturedOutput("Pod execution failed. Logs: " + logs.text(),
+                    logs.totalBytes(), logs.elided(), logs.file());
+        }
+        return new ExecutionResult(logs, KubernetesService.containerExitCode(status));
+    }
+
+    private Mono<V1Pod> createPod(ExecutionTarget target, V1Pod pod) {
+        return Mono.<V1Pod>create(sink -> {
+                    try {
+                        Call call = target.requestApi().createNamespacedPodAsync(target.getNamespace(), pod,
+                                null, null, null, null,
+                                callback(sink));
+                        sink.onCancel(call::cancel);
+                    } catch (ApiException | RuntimeException e) {
+                        sink.error(e);
+                    }
+                })
+                .retryWhen(retry())
+                // A retried create whose first attempt reached the server reports a conflict
+                .onErrorResume(e -> e instanceof ApiException apiException && apiException.getCode() == 409,
+                        e -> Mono.just(pod));
+    }
+
+    private Mono<V1Pod> deletePod(ExecutionTarget target, String podName, Integer gracePeriodSeconds) {
+        return Mono.<V1Pod>create(sink -> {
+                    try {
+                        Call call = target.requestApi().deleteNamespacedPodAsync(podName, target.getNamespace(),
+                                null, null, gracePeriodSeconds, null, null, null, callback(sink));
+                        sink.onCancel(call::cancel);
+                    } catch (ApiException | RuntimeException e) {
+                        sink.error(e);
+                    }
+                })
+                .retryWhen(retry())
+                .doOnSuccess(pod -> logger.info("Deleted pod: {}", podName))
+                .onErrorResume(e -> {
+                    logger.warn("Failed to delete pod {}: {}", podName, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * States of one pod, starting with its current state. Completes when the
+     * server ends the watch, after at most the execution wait time.
+     */
+    public Flux<V1Pod> watchPod(ExecutionTarget target, String podName) {
+        return Flux.using(
+                () -> {
+                    CoreV1Api streamingApi = target.streamingApi();
+                    Call call = streamingApi.listNamespacedPodCall(target.getNamespace(), null, null, null,
+                            "metadata.name=" + podName, null, null, null, null, null, maxWaitSeconds, true, null);
+                    return Watch.<V1Pod>createWatch(streamingApi.getApiClient(), call,
+                            new TypeToken<Watch.Response<V1Pod>>() { }.getType());
+                },
+                watch -> Flux.fromIterable(watch)
+                        .filter(event -> event.object != null)
+                        .map(event -> event.object),
+                this::closeQuietly)
+                .subscribeOn(streamScheduler);
+    }
+
+    /**
+     * Raw log chunks of the task container, following the log until the
+     * container exits.
+     */
+    public Flux<byte[]> streamLogs(ExecutionTarget target, String podName) {
+        return readLogs(() -> target.podLogs().streamNamespacedPodLog(target.getNamespace(), podName, "task-container"));
+    }
+
+    /**
+     * Raw log chunks the task container has written so far.
+     */
+    public Flux<byte[]> snapshotLogs(ExecutionTarget target, String podName) {
+        return readLogs(() -> KubernetesService.openLogSnapshot(target, podName));
+    }
+
+    private Flux<byte[]> readLogs(Callable<InputStream> open) {
+        return Flux.using(
+                open,
+                logs -> Flux.<byte[]>generate(sink -> {
+                    byte[] buffer = new byte[8192];
+                    try {
+                        int read = logs.read(buffer);
+                        if (read < 0) {
+                            sink.complete();
+                        } else {
+                            sink.next(Arrays.copyOf(buffer, read));
+                        }
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                }),
+                this::closeQuietly)
+                .subscribeOn(streamScheduler);
+    }
+
+    private Mono<CapturedOutput> collectLogs(ExecutionTarget target, String podName, String executionId,
+            boolean follow) {
+        return Mono.defer(() -> {
+            OutputCapture capture = outputStorageService.newCapture(executionId);
+            return (follow ? streamLogs(target, podName) : snapshotLogs(target, podName))
+                    .doOnNext(chunk -> write(capture, chunk))
+                    .then(Mono.fromCallable(capture::finish))
+                    .map(captured -> captured.totalBytes() == 0
+                            ? new CapturedOutput("No output", 0, false, null)
+                            : new CapturedOutput(captured.text().trim(), captured.totalBytes(),
+                                    captured.elided(), captured.file()))
+                    .onErrorResume(e -> {
+                        logger.error("Failed to get pod logs for {}", podName, e);
+                        closeQuietly(capture::discard);
+                        String text = "Failed to retrieve pod logs: " + e.getMessage();
+                        return Mono.just(new CapturedOutput(text, text.length(), false, null));
+                    });
+        });
+    }
+
+    private static void write(OutputCapture capture, byte[] chunk) {
+        try {
+            capture.write(chunk, 0, chunk.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to capture pod log", e);
+        }
+    }
+
+    private Retry retry() {
+        return Retry.backoff(maxAttempts - 1, Duration.ofMillis(initialBackoffMillis))
+                .maxBackoff(Duration.ofMillis(maxBackoffMillis))
+                .filter(e -> e instanceof ApiException apiException
+                        && ResilientKubernetesClient.isRetryable(apiException))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static <T> ApiCallback<T> callback(MonoSink<T> sink) {
+        return new ApiCallback<>() {
+            @Override
+            public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                sink.error(e);
+            }
+
+            @Override
+            public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+                sink.success(result);
+            }
+
+            @Override
+            public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+            }
+
+            @Override
+            public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+            }
+        };
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close Kubernetes stream: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamScheduler.dispose();
+    }
+}
@@ -0,0 +1,324 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.TaskConcurrencyException;
+import com.kaiburr.taskapi.model.ActiveExecution;
+import com.kaiburr.taskapi.model.ConcurrencyPolicy;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutionSummary;
+import com.kaiburr.taskapi.model.ExecutorBackend;
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import com.kaiburr.taskapi.model.TaskPage;
+import com.kaiburr.taskapi.repository.ReactiveTaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reactive counterpart of {@link TaskService}. Queries and updates go through
+ * the reactive Mongo driver and Kubernetes executions through
+ * {@link ReactiveKubernetesService}. The few remaining blocking steps (leases,
+ * output blobs, GridFS, the archive and the local and in-memory executors) run
+ * on the bounded elastic scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveTaskService {
+
+    // Tasks whose output blobs are loaded together
+    private static final int RESOLVE_BATCH_SIZE = 100;
+
+    @Autowired
+    private ReactiveTaskRepository taskRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReactiveKubernetesService kubernetesService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private OutputDedupService outputDedupService;
+
+    @Autowired
+    private OwnerRateLimiter ownerRateLimiter;
+
+    @Autowired
+    private FairShareGate fairShareGate;
+
+    @Autowired
+    private ExecutionRegistry executionRegistry;
+
+    public Flux<Task> getAllTasks() {
+        return resolveOutputs(taskRepository.findAll());
+    }
+
+    public Mono<Task> getTaskById(String id) {
+        return resolveOutputs(taskRepository.findById(id));
+    }
+
+    public Mono<Boolean> existsById(String id) {
+        return taskRepository.existsById(id);
+    }
+
+    public Mono<Task> saveTask(Task task) {
+        return saveTask(task, null);
+    }
+
+    /**
+     * See {@link TaskService#saveTask(Task, Long)}.
+     */
+    public Mono<Task> saveTask(Task task, Long expectedVersion) {
+        // An update is charged to the stored owner, see TaskService#saveTask
+        return storedState(task)
+                .flatMap(state -> blocking(() -> {
+                    ownerRateLimiter.acquire(state.map(Task::getOwner).orElse(task.getOwner()));
+                    taskService.validateDependencies(task);
+                    taskExecutorService.validate(task);
+                }))
+                .then(Mono.defer(() -> save(task, expectedVersion)));
+    }
+
+    private Mono<Optional<Task>> storedState(Task task) {
+        return Mono.defer(() -> task.getId() != null
+                ? mongoTemplate.findOne(taskService.storedStateQuery(task.getId()), Task.class)
+                        .map(Optional::of).defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.<Task>empty()));
+    }
+
+    private Mono<Task> save(Task task, Long expectedVersion) {
+        taskService.prepareForSave(task);
+        // The fencing token is carried over from the stored task, see TaskService#saveTask
+        Mono<Optional<Task>> stored = storedState(task);
+        if (expectedVersion != null) {
+            return stored.flatMap(state -> {
+                task.setLastFencingToken(state.map(Task::getLastFencingToken).orElse(null));
+                task.setVersion(expectedVersion);
+                return taskRepository.save(task);
+            });
+        }
+
+        return stored
+                .flatMap(state -> {
+                    task.setVersion(state.map(Task::getVersion).orElse(null));
+                    task.setLastFencingToken(state.map(Task::getLastFencingToken).orElse(null));
+                    return taskRepository.save(task);
+                })
+                // Modified between reading the revision and saving: last write wins
+                .retryWhen(Retry.max(TaskService.SAVE_ATTEMPTS - 1)
+                        .filter(OptimisticLockingFailureException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    public Mono<Long> findVersion(String id) {
+        return mongoTemplate.findOne(taskService.versionQuery(id), Task.class).mapNotNull(Task::getVersion);
+    }
+
+    public Mono<Void> deleteTask(String id) {
+        // Stored outputs and archived executions are not part of the task document, remove them with it
+        return taskRepository.findById(id)
+                .flatMap(task -> blocking(() -> ownerRateLimiter.acquire(task.getOwner()))
+                        .then(taskRepository.deleteById(id))
+                        .then(blocking(() -> taskService.deleteStorage(task))));
+    }
+
+    public Flux<Task> findTasksByName(String name) {
+        return resolveOutputs(taskRepository.findByNameContainingIgnoreCase(name));
+    }
+
+    public Mono<TaskPage> findTasksByOwner(String owner, String name, String cursor, int limit) {
+        return Mono.fromSupplier(() -> taskService.ownerPageQuery(owner, name, cursor, limit))
+                .flatMap(query -> mongoTemplate.find(query, Task.class).collectList())
+                .map(tasks -> taskService.toOwnerPage(tasks, limit))
+                .flatMap(page -> Mono.fromCallable(() -> outputDedupService.resolve(page.getItems()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(page));
+    }
+
+    public Mono<Task> executeTaskCommand(String taskId) {
+        return executeTaskCommand(taskId, null);
+    }
+
+    /**
+     * See {@link TaskService#executeTaskCommand(String, ExecutionPriority)}.
+     */
+    public Mono<Task> executeTaskCommand(String taskId, ExecutionPriority requestedPriority) {
+        return executeTask(taskId, requestedPriority).map(ExecutedTask::task);
+    }
+
+    /**
+     * See {@link TaskService#executeTask(String, ExecutionPriority)}.
+     */
+    public Mono<ExecutedTask> executeTask(String taskId, ExecutionPriority requestedPriority) {
+        return taskRepository.findById(taskId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Task not found with id: " + taskId)))
+                .flatMap(task -> blocking(() -> ownerRateLimiter.acquire(task.getOwner())).thenReturn(task))
+                .flatMap(task -> execute(task, requestedPriority != null
+                        ? requestedPriority
+                        : taskService.priorityOf(task)));
+    }
+
+    private Mono<ExecutedTask> execute(Task task, ExecutionPriority priority) {
+        ConcurrencyPolicy policy = task.getConcurrencyPolicy() != null
+                ? task.getConcurrencyPolicy()
+                : ConcurrencyPolicy.ALLOW;
+        return Mono.fromCallable(() -> {
+                    taskExecutorService.executorFor(task);
+                    return executionRegistry.register(task, priority);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(handle -> executeGated(task, policy, handle)
+                        .onErrorResume(CancellationException.class, e -> store(task.getId(),
+                                taskService.cancelledExecution(handle.getExecutionId(), LocalDateTime.now())))
+                        .doFinally(signal -> blocking(() -> executionRegistry.finished(handle)).subscribe()));
+    }
+
+    private Mono<ExecutedTask> executeGated(Task task, ConcurrencyPolicy policy, ExecutionHandle handle) {
+        // Waiting for a fair share of the execution slots blocks, so it is done off the event loop
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> fairShareGate.acquire(task.getOwner(), handle.getPriority(), handle.onCancel()))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                permit -> {
+                    if (handle.isCancelled()) {
+                        return store(task.getId(),
+                                taskService.cancelledExecution(handle.getExecutionId(), LocalDateTime.now()));
+                    }
+                    if (policy == ConcurrencyPolicy.ALLOW) {
+                        return executeCommand(task, handle).flatMap(execution -> store(task.getId(), execution));
+                    }
+                    return executeUnderLease(task, policy, handle);
+                },
+                permit -> Mono.fromRunnable(permit::close));
+    }
+
+    private Mono<ExecutedTask> executeUnderLease(Task task, ConcurrencyPolicy policy, ExecutionHandle handle) {
+        String taskId = task.getId();
+        // Take the per-task lease once a slot is free, see TaskService
+        Mono<TaskLease> acquire = Mono.fromCallable(() -> policy == ConcurrencyPolicy.QUEUE
+                        ? taskLeaseService.acquireQueued(taskId)
+                        : taskLeaseService.tryAcquire(taskId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(lease -> lease.isEmpty()
+                        ? Mono.error(new TaskConcurrencyException("Task is already being executed: " + taskId))
+                        : Mono.just(lease.get()));
+        return Mono.usingWhen(acquire,
+                lease -> Mono.using(() -> taskLeaseService.keepAlive(lease),
+                        renewal -> executeCommand(task, handle)
+                                .flatMap(execution -> appendExecution(taskId, execution, lease.getFencingToken())
+                                        .map(updated -> new ExecutedTask(updated, execution))),
+                        TaskLeaseService.Renewal::close),
+                lease -> blocking(() -> taskLeaseService.release(lease)));
+    }
+
+    private Mono<ExecutedTask> store(String taskId, TaskExecution execution) {
+        return appendExecution(taskId, execution, null).map(updated -> new ExecutedTask(updated, execution));
+    }
+
+    private Mono<TaskExecution> executeCommand(Task task, ExecutionHandle handle) {
+        LocalDateTime startTime = LocalDateTime.now();
+        TaskExecutor executor = taskExecutorService.executorFor(task);
+        return blocking(() -> executionRegistry.started(handle))
+                .then(execute(executor, task, handle))
+                .publishOn(Schedulers.boundedElastic())
+                .map(result -> {
+                    TaskExecution execution = taskService.toExecution(handle.getExecutionId(), startTime, result);
+                    execution.setExecutor(executor.getBackend());
+                    return execution;
+                });
+    }
+
+    private Mono<ExecutionResult> execute(TaskExecutor executor, Task task, ExecutionHandle handle) {
+        // Pods are run without blocking; the other backends block and get a thread of their own
+        if (executor.getBackend() == ExecutorBackend.KUBERNETES) {
+            return kubernetesService.executeCommandInPod(task.getId(), task.getCommand(), handle);
+        }
+        return Mono.fromCallable(() -> executor.execute(task.getId(), task.getCommand(), handle))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * See {@link TaskService#cancelExecution}.
+     */
+    public Mono<ActiveExecution> cancelExecution(String taskId, String executionId) {
+        return Mono.fromCallable(() -> taskService.cancelExecution(taskId, executionId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public Flux<ActiveExecution> getActiveExecutions(String taskId) {
+        return mongoTemplate.find(executionRegistry.activeQuery(taskId), ActiveExecution.class);
+    }
+
+    /**
+     * Push the execution onto the task, with the same fencing as
+     * {@link TaskService}, and return the updated task.
+     */
+    private Mono<Task> appendExecution(String taskId, TaskExecution execution, Long fencingToken) {
+        return blocking(() -> outputDedupService.deduplicate(taskId, execution))
+                .then(Mono.defer(() -> mongoTemplate.updateFirst(taskService.appendQuery(taskId, fencingToken),
+                        taskService.appendUpdate(execution, fencingToken), Task.class)))
+                .flatMap(result -> result.getMatchedCount() > 0
+                        ? resolveOutputs(taskRepository.findById(taskId))
+                        : taskRepository.existsById(taskId).flatMap(exists -> Mono.error(exists
+                                ? new TaskConcurrencyException("Execution lease for task " + taskId + " was superseded")
+                                : new RuntimeException("Task not found with id: " + taskId))));
+    }
+
+    public Mono<List<TaskExecution>> getExecutions(Task task, LocalDateTime from, LocalDateTime to) {
+        // Archived ranges are read from local segment files
+        return Mono.fromCallable(() -> taskService.getExecutions(task, from, to))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Flux<ExecutionSummary> getExecutionSummaries(String taskId, ExecutionSummary.Granularity granularity) {
+        return mongoTemplate.find(taskService.executionSummariesQuery(taskId, granularity), ExecutionSummary.class);
+    }
+
+    public Mono<TaskExecution> findExecutionById(String executionId) {
+        return resolveOutputs(taskRepository.findByExecutionId(executionId))
+                .flatMap(task -> Mono.justOrEmpty(task.getTaskExecutions().stream()
+                        .filter(execution -> executionId.equals(execution.getId()))
+                        .findFirst()));
+    }
+
+    /**
+     * Rebuild deduplicated outputs, loading the blobs of each page of tasks with
+     * one blocking query.
+     */
+    private Flux<Task> resolveOutputs(Flux<Task> tasks) {
+        return tasks.buffer(RESOLVE_BATCH_SIZE)
+                .concatMap(batch -> Mono.fromCallable(() -> outputDedupService.resolve(batch))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMapIterable(batch -> batch);
+    }
+
+    private Mono<Task> resolveOutputs(Mono<Task> task) {
+        return task.flatMap(found -> Mono.fromCallable(() -> outputDedupService.resolve(found))
+                .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private static Mono<Void> blocking(Runnable runnable) {
+        return Mono.fromRunnable(runnable).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+}
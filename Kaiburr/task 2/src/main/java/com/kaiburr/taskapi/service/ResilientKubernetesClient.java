@@ -0,0 +1,219 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.KubernetesUnavailableException;
+import io.kubernetes.client.openapi.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps Kubernetes API calls with client-side rate limiting, retries with
+ * jittered exponential backoff for transient errors and a circuit breaker that
+ * fails fast while the API server is unhealthy.
+ *
+ * <p>Prototype scoped: each {@link ExecutionTarget} gets its own instance, so
+ * one failing cluster doesn't open the circuit of the others.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ResilientKubernetesClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientKubernetesClient.class);
+
+    // 0 is used by the client for connection-level failures
+    private static final Set<Integer> RETRYABLE_CODES = Set.of(0, 408, 429, 500, 502, 503, 504);
+
+    @FunctionalInterface
+    public interface ApiCall<T> {
+        T call() throws ApiException;
+    }
+
+    private enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${kubernetes.client.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${kubernetes.client.initial-backoff-millis:200}")
+    private long initialBackoffMillis;
+
+    @Value("${kubernetes.client.max-backoff-millis:10000}")
+    private long maxBackoffMillis;
+
+    @Value("${kubernetes.client.circuit-failure-threshold:10}")
+    private int circuitFailureThreshold;
+
+    @Value("${kubernetes.client.circuit-open-millis:30000}")
+    private long circuitOpenMillis;
+
+    private final double qps;
+    private final int burst;
+
+    // Token bucket state, guarded by this
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Circuit breaker state, guarded by this
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean probeInFlight;
+
+    public ResilientKubernetesClient(
+            @Value("${kubernetes.client.qps:20}") double qps,
+            @Value("${kubernetes.client.burst:40}") int burst) {
+        this.qps = qps;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Run a Kubernetes API call, retrying transient failures. Non-retryable
+     * errors and the last retryable error are rethrown as-is; runtime
+     * exceptions are counted as failures and rethrown without retrying.
+     */
+    public <T> T call(String operation, ApiCall<T> apiCall) throws ApiException, InterruptedException {
+        ApiException lastError = null;
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            acquirePermit();
+            beforeCall(operation);
+            try {
+                T result = apiCall.call();
+                onSuccess();
+                return result;
+            } catch (ApiException e) {
+                if (!isRetryable(e)) {
+                    // The API server answered, so it is healthy even though the request failed
+                    onSuccess();
+                    throw e;
+                }
+                onFailure(operation);
+                lastError = e;
+                if (attempt == maxAttempts) {
+                    break;
+                }
+
+                long delay = backoffMillis(attempt, e);
+                logger.warn("Kubernetes {} failed with {} (attempt {}/{}), retrying in {} ms",
+                        operation, e.getCode(), attempt, maxAttempts, delay);
+                Thread.sleep(delay);
+            } catch (RuntimeException e) {
+                // The call never got an answer (e.g. the target has no client): a failure, and it must
+                // not leave a half-open probe in flight
+                onFailure(operation);
+                throw e;
+            }
+        }
+        throw lastError;
+    }
+
+    private long backoffMillis(int attempt, ApiException e) {
+        Long retryAfter = retryAfterMillis(e);
+        if (retryAfter != null) {
+            return Math.min(retryAfter, maxBackoffMillis);
+        }
+        // Full jitter: uniform in [0, min(max, initial * 2^attempt))
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(Math.max(cap, 1));
+    }
+
+    private Long retryAfterMillis(ApiException e) {
+        Map<String, List<String>> headers = e.getResponseHeaders();
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(header.getValue().get(0).trim()));
+                } catch (NumberFormatException ignored) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private synchronized void beforeCall(String operation) {
+        if (state == CircuitState.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < circuitOpenMillis) {
+                throw new KubernetesUnavailableException(
+                        "Kubernetes API circuit is open, rejecting " + operation);
+            }
+            state = CircuitState.HALF_OPEN;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            // Let a single probe through, reject everything else until it completes
+            if (probeInFlight) {
+                throw new KubernetesUnavailableException(
+                        "Kubernetes API circuit is half-open, rejecting " + operation);
+            }
+            probeInFlight = true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != CircuitState.CLOSED) {
+            logger.info("Kubernetes API circuit closed");
+        }
+        state = CircuitState.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    private synchronized void onFailure(String operation) {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= circuitFailureThreshold) {
+            if (state != CircuitState.OPEN) {
+                logger.warn("Kubernetes API circuit opened after {} consecutive failures (last: {})",
+                        consecutiveFailures, operation);
+            }
+            state = CircuitState.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Whether calls are currently being rejected without reaching the API server.
+     */
+    public synchronized boolean isCircuitOpen() {
+        return state == CircuitState.OPEN && System.currentTimeMillis() - openedAtMillis < circuitOpenMillis;
+    }
+
+    /**
+     * Block until the token bucket allows another request.
+     */
+    private void acquirePermit() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - lastRefillNanos) * qps / 1_000_000_000d);
+                lastRefillNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) * 1_000_000_000d / qps);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000));
+        }
+    }
+
+    static boolean isRetryable(ApiException e) {
+        return RETRYABLE_CODES.contains(e.getCode());
+    }
+}
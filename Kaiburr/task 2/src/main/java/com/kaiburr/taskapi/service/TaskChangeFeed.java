@@ -0,0 +1,395 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskEvent;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Change feed of the tasks collection, fanned out to any number of subscribers.
+ *
+ * <p>Each replica watches one Mongo change stream, whatever the number of
+ * subscribers. Events are appended to a replay buffer and offered to a bounded
+ * queue per subscriber, drained on a virtual thread so a slow client only
+ * blocks itself. A subscriber whose queue overflows is closed; it reconnects
+ * with the id of the last event it saw and is replayed from the buffer, or
+ * gets a {@link TaskEvent#RESET} event when it fell too far behind.
+ *
+ * <p>Change streams need a replica set. On a standalone server the feed logs
+ * a warning and subscribers only receive heartbeats.
+ */
+@Service
+public class TaskChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskChangeFeed.class);
+
+    // Returned by servers that are not part of a replica set
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final String EXECUTIONS_PREFIX = "taskExecutions.";
+
+    /**
+     * Receives the events of one subscription, one call at a time.
+     */
+    public interface Listener {
+
+        void onEvent(TaskEvent event) throws IOException;
+
+        void onHeartbeat() throws IOException;
+
+        /**
+         * The feed dropped the subscription: its queue overflowed or the
+         * application is shutting down.
+         */
+        void onClose();
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final boolean enabled;
+    private final int subscriberQueueSize;
+    private final int replaySize;
+    private final int maxSubscribers;
+    private final long retryMillis;
+    private final long heartbeatSeconds;
+
+    private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+    private final Deque<TaskEvent> replay = new ArrayDeque<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-events-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private volatile BsonDocument resumeToken;
+    private Thread watcher;
+
+    public TaskChangeFeed(
+            @Value("${task.events.enabled:true}") boolean enabled,
+            @Value("${task.events.subscriber-queue:256}") int subscriberQueueSize,
+            @Value("${task.events.replay-size:1024}") int replaySize,
+            @Value("${task.events.max-subscribers:10000}") int maxSubscribers,
+            @Value("${task.events.retry-millis:5000}") long retryMillis,
+            @Value("${task.events.heartbeat-seconds:15}") long heartbeatSeconds,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.replaySize = replaySize;
+        this.maxSubscribers = maxSubscribers;
+        this.retryMillis = retryMillis;
+        this.heartbeatSeconds = heartbeatSeconds;
+
+        Gauge.builder("task.events.subscribers", subscribers, Set::size)
+                .description("Open task event streams").register(meterRegistry);
+        this.dropped = Counter.builder("task.events.dropped")
+                .description("Event streams closed because the client fell behind").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watchLoop, "task-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+        heartbeats.scheduleAtFixedRate(() -> subscribers.forEach(Subscription::heartbeat),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscription::close);
+        senders.shutdown();
+    }
+
+    public int getSubscriberQueueSize() {
+        return subscriberQueueSize;
+    }
+
+    /**
+     * Subscribe to task events, optionally of a single task. With the id of the
+     * last event a client received, the events it missed are replayed first.
+     *
+     * @return the subscription, or null if the feed is disabled or at capacity
+     */
+    public Subscription subscribe(String taskId, String lastEventId, Listener listener) {
+        if (!enabled || subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        Subscription subscription = new Subscription(taskId, listener);
+        synchronized (this) {
+            if (lastEventId != null && !lastEventId.isEmpty()) {
+                List<TaskEvent> missed = eventsAfter(lastEventId);
+                if (missed == null || missed.size() > subscriberQueueSize) {
+                    subscription.deliver(new TaskEvent(null, TaskEvent.RESET, taskId, null));
+                } else {
+                    missed.forEach(subscription::deliver);
+                }
+            }
+            if (!subscription.closed) {
+                subscribers.add(subscription);
+            }
+        }
+        return subscription;
+    }
+
+    private List<TaskEvent> eventsAfter(String lastEventId) {
+        List<TaskEvent> missed = new ArrayList<>();
+        Iterator<TaskEvent> newestFirst = replay.descendingIterator();
+        while (newestFirst.hasNext()) {
+            TaskEvent event = newestFirst.next();
+            if (lastEventId.equals(event.getId())) {
+                return missed.reversed();
+            }
+            missed.add(event);
+        }
+        return null;
+    }
+
+    private synchronized void publish(TaskEvent event) {
+        if (event.getId() != null) {
+            replay.addLast(event);
+            if (replay.size() > replaySize) {
+                replay.removeFirst();
+            }
+        } else {
+            // Nothing before a reset can be replayed
+            replay.clear();
+        }
+        subscribers.forEach(subscription -> subscription.deliver(event));
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Task.class))
+                        .watch(List.of(Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete"))))
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    changes = changes.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                    logger.info("Watching task changes");
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change != null) {
+                            resumeToken = change.getResumeToken();
+                            publish(toEvent(change));
+                        }
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    logger.warn("MongoDB does not support change streams (not a replica set); task events are disabled");
+                    return;
+                }
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // The oplog no longer holds our position: start over and tell clients to refetch
+                    logger.warn("Task change stream history lost, restarting from now");
+                    resumeToken = null;
+                    publish(new TaskEvent(null, TaskEvent.RESET, null, null));
+                    continue;
+                }
+                retryLater(e);
+            } catch (MongoException e) {
+                retryLater(e);
+            } catch (IllegalStateException e) {
+                // Client closed during shutdown
+                if (running) {
+                    retryLater(e);
+                }
+            }
+        }
+    }
+
+    private void retryLater(RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        logger.warn("Task change stream failed, retrying in {} ms: {}", retryMillis, e.getMessage());
+        try {
+            Thread.sleep(retryMillis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private TaskEvent toEvent(ChangeStreamDocument<Document> change) {
+        String id = change.getResumeToken().getString("_data").getValue();
+        String taskId = idString(change.getDocumentKey().get("_id"));
+        OperationType operation = change.getOperationType();
+
+        if (operation == OperationType.DELETE) {
+            return new TaskEvent(id, TaskEvent.TASK_DELETED, taskId, null);
+        }
+        if (operation == OperationType.INSERT || operation == OperationType.REPLACE) {
+            Number version = change.getFullDocument().get("version", Number.class);
+            return new TaskEvent(id, operation == OperationType.INSERT ? TaskEvent.TASK_CREATED : TaskEvent.TASK_UPDATED,
+                    taskId, version != null ? version.longValue() : null);
+        }
+
+        // Appended executions show up as "taskExecutions.<index>"; a rewritten
+        // array (retention pulls) is a plain task update
+        BsonDocument updatedFields = change.getUpdateDescription() != null
+                ? change.getUpdateDescription().getUpdatedFields() : null;
+        if (updatedFields == null) {
+            updatedFields = new BsonDocument();
+        }
+        BsonValue version = updatedFields.get("version");
+        TaskEvent event = new TaskEvent(id, TaskEvent.TASK_UPDATED, taskId,
+                version != null && version.isNumber() ? version.asNumber().longValue() : null);
+        for (Map.Entry<String, BsonValue> field : updatedFields.entrySet()) {
+            if (field.getKey().startsWith(EXECUTIONS_PREFIX) && field.getValue().isDocument()) {
+                event.getExecutions().add(toExecution(field.getValue().asDocument()));
+            }
+        }
+        if (!event.getExecutions().isEmpty()) {
+            event.setType(TaskEvent.EXECUTION_COMPLETED);
+        }
+        return event;
+    }
+
+    private TaskExecution toExecution(BsonDocument stored) {
+        Document document = new DocumentCodec().decode(new BsonDocumentReader(stored), DecoderContext.builder().build());
+        TaskExecution execution = mongoTemplate.getConverter().read(TaskExecution.class, document);
+        execution.setOutput(null);
+        execution.setOutputDelta(null);
+        return execution;
+    }
+
+    private static String idString(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    /**
+     * One open event stream.
+     */
+    public final class Subscription {
+
+        private final String taskId;
+        private final Listener listener;
+        private final BlockingQueue<TaskEvent> queue = new ArrayBlockingQueue<>(subscriberQueueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(String taskId, Listener listener) {
+            this.taskId = taskId;
+            this.listener = listener;
+        }
+
+        /**
+         * Stop delivering events, e.g. because the client disconnected.
+         */
+        public void cancel() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        private void deliver(TaskEvent event) {
+            if (closed || (taskId != null && event.getTaskId() != null && !taskId.equals(event.getTaskId()))) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                dropped.increment();
+                close();
+                return;
+            }
+            drainLater();
+        }
+
+        private void heartbeat() {
+            heartbeatDue.set(true);
+            drainLater();
+        }
+
+        private void close() {
+            cancel();
+            queue.clear();
+            senders.execute(listener::onClose);
+        }
+
+        private void drainLater() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (heartbeatDue.getAndSet(false)) {
+                    listener.onHeartbeat();
+                }
+                TaskEvent event;
+                while (!closed && (event = queue.poll()) != null) {
+                    listener.onEvent(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Client is gone
+                cancel();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && (!queue.isEmpty() || heartbeatDue.get())) {
+                drainLater();
+            }
+        }
+    }
+}
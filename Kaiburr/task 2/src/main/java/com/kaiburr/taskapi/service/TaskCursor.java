@@ -0,0 +1,34 @@
+package com.kaiburr.taskapi.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in an owner's task listing: the name and id of the last task
+ * of a page. Encoded as URL-safe Base64 so clients treat it as opaque.
+ */
+record TaskCursor(String name, String id) {
+
+    String encode() {
+        String position = name + "\0" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    static TaskCursor decode(String cursor) {
+        String position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        // Ids never contain the separator, names may
+        int separator = position.lastIndexOf('\0');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new TaskCursor(position.substring(0, separator), position.substring(separator + 1));
+    }
+}
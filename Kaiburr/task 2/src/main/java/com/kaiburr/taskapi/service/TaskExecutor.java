@@ -0,0 +1,39 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutorBackend;
+
+import java.util.Set;
+
+/**
+ * A backend that runs task commands. Every implementation is a Spring bean;
+ * {@link TaskExecutorService} picks the one a task asks for.
+ *
+ * <p>Executors are called once an execution holds its lease and its fair share
+ * slot, and only have to run the command: they capture the output through
+ * {@link OutputStorageService} so large outputs are spilled the same way on
+ * every backend, and report errors in the result rather than by throwing.
+ */
+public interface TaskExecutor {
+
+    /**
+     * Optional behaviour of a backend, reported by {@code GET /api/executors}.
+     */
+    enum Capability {
+        /** Output is captured while the command runs, so a stopped command keeps what it wrote */
+        STREAMING,
+        /** A running command stops early when its execution is cancelled */
+        CANCELLATION,
+        /** Many commands share one runner rather than each getting its own (pod, thread) */
+        BATCHING
+    }
+
+    ExecutorBackend getBackend();
+
+    Set<Capability> getCapabilities();
+
+    /**
+     * Run the command and wait for it to finish, time out or be cancelled
+     * through the handle.
+     */
+    ExecutionResult execute(String taskId, String command, ExecutionHandle handle) throws InterruptedException;
+}
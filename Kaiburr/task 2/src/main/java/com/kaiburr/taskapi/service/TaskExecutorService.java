@@ -0,0 +1,90 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.ExecutorBackend;
+import com.kaiburr.taskapi.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Chooses the {@link TaskExecutor} of each task: the one named by the task, or
+ * the deployment default {@code task.executor.default}. Only the backends in
+ * {@code task.executor.enabled} can be used, by default only Kubernetes: the
+ * local one runs task commands on the replica itself, and the in-memory one
+ * is meant for the "dev" profile.
+ */
+@Service
+public class TaskExecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskExecutorService.class);
+
+    /**
+     * A backend as reported by {@code GET /api/executors}.
+     */
+    public record ExecutorInfo(ExecutorBackend backend, Set<TaskExecutor.Capability> capabilities,
+            boolean defaultExecutor) {
+    }
+
+    private final Map<ExecutorBackend, TaskExecutor> executors = new EnumMap<>(ExecutorBackend.class);
+    private final ExecutorBackend defaultBackend;
+
+    public TaskExecutorService(List<TaskExecutor> available,
+            @Value("${task.executor.default:KUBERNETES}") ExecutorBackend defaultBackend,
+            @Value("${task.executor.enabled:KUBERNETES}") List<ExecutorBackend> enabled) {
+        for (TaskExecutor executor : available) {
+            if (enabled.contains(executor.getBackend())) {
+                executors.put(executor.getBackend(), executor);
+            }
+        }
+        if (!executors.containsKey(defaultBackend)) {
+            throw new IllegalArgumentException("Default executor " + defaultBackend + " is not enabled");
+        }
+        this.defaultBackend = defaultBackend;
+        logger.info("Task executors enabled: {} (default {})", executors.keySet(), defaultBackend);
+    }
+
+    /**
+     * Backend a task runs on.
+     */
+    public ExecutorBackend backendOf(Task task) {
+        return task.getExecutor() != null ? task.getExecutor() : defaultBackend;
+    }
+
+    /**
+     * Executor of a task.
+     *
+     * @throws IllegalArgumentException if the task asks for a backend that is not enabled
+     */
+    public TaskExecutor executorFor(Task task) {
+        ExecutorBackend backend = backendOf(task);
+        TaskExecutor executor = executors.get(backend);
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor " + backend + " is not enabled");
+        }
+        return executor;
+    }
+
+    /**
+     * Check on save that the backend of a task can be used.
+     *
+     * @throws IllegalArgumentException if it is not enabled
+     */
+    public void validate(Task task) {
+        executorFor(task);
+    }
+
+    public List<ExecutorInfo> getExecutors() {
+        List<ExecutorInfo> infos = new ArrayList<>();
+        executors.forEach((backend, executor) -> infos.add(new ExecutorInfo(backend,
+                new TreeSet<>(executor.getCapabilities()), backend == defaultBackend)));
+        return infos;
+    }
+}
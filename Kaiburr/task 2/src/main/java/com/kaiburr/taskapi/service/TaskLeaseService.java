@@ -0,0 +1,162 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.TaskLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo-backed per-task execution leases. A lease is acquired with a single
+ * findAndModify and expires on its own, so a replica that dies mid-run never
+ * blocks the task for longer than the lease duration. While an execution runs,
+ * its lease is renewed in the background, so runs longer than the lease
+ * duration keep it.
+ */
+@Service
+public class TaskLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskLeaseService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${task.lease.duration-seconds:120}")
+    private long leaseDurationSeconds;
+
+    @Value("${task.lease.queue-timeout-seconds:120}")
+    private long queueTimeoutSeconds;
+
+    @Value("${task.lease.queue-poll-millis:500}")
+    private long queuePollMillis;
+
+    @Value("${task.lease.renew-interval-seconds:30}")
+    private long renewIntervalSeconds;
+
+    /**
+     * Stops renewing a lease when closed. Closing does not release it.
+     */
+    public interface Renewal extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String replicaId = Optional.ofNullable(System.getenv("HOSTNAME"))
+            .orElse("replica") + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * Try to take the lease for a task. Returns empty if another execution
+     * currently holds an unexpired lease.
+     */
+    public Optional<TaskLease> tryAcquire(String taskId) {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("_id").is(taskId).and("expiresAt").lt(now));
+        Update update = new Update()
+                .set("holder", replicaId)
+                .set("expiresAt", now.plusSeconds(leaseDurationSeconds))
+                .inc("fencingToken", 1);
+
+        try {
+            // The upsert only inserts when no lease exists; an unexpired lease makes
+            // the query miss and the insert collide on _id
+            TaskLease lease = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), TaskLease.class);
+            logger.debug("Acquired lease {}", lease);
+            return Optional.ofNullable(lease);
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Wait for the lease of a task, polling until the queue timeout elapses.
+     */
+    public Optional<TaskLease> acquireQueued(String taskId) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(queueTimeoutSeconds));
+        while (true) {
+            Optional<TaskLease> lease = tryAcquire(taskId);
+            if (lease.isPresent() || Instant.now().isAfter(deadline)) {
+                return lease;
+            }
+            Thread.sleep(queuePollMillis);
+        }
+    }
+
+    /**
+     * Extend a lease by the lease duration from now.
+     *
+     * @return false if the lease has expired and been taken by someone else
+     */
+    public boolean renew(TaskLease lease) {
+        Query query = new Query(Criteria.where("_id").is(lease.getTaskId())
+                .and("fencingToken").is(lease.getFencingToken()));
+        Instant expiresAt = Instant.now().plusSeconds(leaseDurationSeconds);
+        boolean renewed = mongoTemplate.updateFirst(query, new Update().set("expiresAt", expiresAt), TaskLease.class)
+                .getMatchedCount() > 0;
+        if (renewed) {
+            lease.setExpiresAt(expiresAt);
+        }
+        return renewed;
+    }
+
+    /**
+     * Renew a lease every {@code task.lease.renew-interval-seconds} until the
+     * returned renewal is closed or the lease is lost.
+     */
+    public Renewal keepAlive(TaskLease lease) {
+        ScheduledFuture<?>[] task = new ScheduledFuture<?>[1];
+        task[0] = renewals.scheduleWithFixedDelay(() -> {
+            try {
+                if (!renew(lease)) {
+                    // The final write is rejected by the fencing token, nothing else to do
+                    logger.warn("Lease for task {} (token {}) was lost", lease.getTaskId(), lease.getFencingToken());
+                    task[0].cancel(false);
+                }
+            } catch (RuntimeException e) {
+                // Retried on the next interval, while the lease has not expired yet
+                logger.warn("Failed to renew lease for task {}: {}", lease.getTaskId(), e.getMessage());
+            }
+        }, renewIntervalSeconds, renewIntervalSeconds, TimeUnit.SECONDS);
+        return () -> task[0].cancel(false);
+    }
+
+    /**
+     * Release a lease so the next execution can start immediately. Only the
+     * holder of the current fencing token can release it.
+     */
+    public void release(TaskLease lease) {
+        Query query = new Query(Criteria.where("_id").is(lease.getTaskId())
+                .and("fencingToken").is(lease.getFencingToken()));
+        mongoTemplate.updateFirst(query, new Update().set("expiresAt", Instant.EPOCH), TaskLease.class);
+        logger.debug("Released lease for task {} (token {})", lease.getTaskId(), lease.getFencingToken());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewals.shutdownNow();
+    }
+}
@@ -0,0 +1,270 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.MissedRun;
+import com.kaiburr.taskapi.model.Task;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires recurring task executions from the persisted {@code nextRunAt} of each
+ * scheduled task.
+ *
+ * <p>Schedules are hashed into partitions and the live replicas (tracked by a
+ * heartbeat in the {@code scheduler_members} collection) split the partitions
+ * between them, so each replica only loads its own slice of due schedules into
+ * an in-memory timing wheel. Firing is a compare-and-set on {@code nextRunAt},
+ * so a run fires exactly once even while replicas disagree about ownership.
+ *
+ * <p>The wheel is advanced by a thread of its own, so slow jobs on the shared
+ * Spring scheduler don't delay firing. Runs that fire but fail to execute are
+ * logged and recorded in {@code missed_runs}.
+ */
+@Service
+public class TaskSchedulerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskSchedulerService.class);
+
+    private static final String MEMBERS_COLLECTION = "scheduler_members";
+
+    private record ScheduledRun(String taskId, Instant dueAt) {
+    }
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${task.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${task.scheduler.horizon-seconds:600}")
+    private long horizonSeconds;
+
+    @Value("${task.scheduler.member-timeout-seconds:90}")
+    private long memberTimeoutSeconds;
+
+    @Value("${task.scheduler.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${task.scheduler.missed-retention-days:30}")
+    private long missedRetentionDays;
+
+    private final String replicaId = Optional.ofNullable(System.getenv("HOSTNAME"))
+            .orElse("replica") + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    // 1 s ticks: 60 s, 60 min and 24 h levels
+    private final TimingWheel<ScheduledRun> wheel =
+            new TimingWheel<>(1000, new int[] { 60, 60, 24 }, System.currentTimeMillis());
+
+    // Runs currently in the wheel, keyed by task id, to avoid loading a run twice
+    private final Map<String, Instant> pending = new HashMap<>();
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-scheduler-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<Integer> ownedPartitions = List.of();
+
+    public TaskSchedulerService(@Value("${task.scheduler.execution-threads:8}") int executionThreads) {
+        this.executor = Executors.newFixedThreadPool(executionThreads);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                // A failed tick must not cancel the ones after it
+                logger.warn("Scheduler tick failed: {}", e.getMessage());
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Heartbeat this replica, recompute partition ownership and load every owned
+     * schedule that falls due within the horizon.
+     */
+    @Scheduled(fixedDelayString = "${task.scheduler.refresh-millis:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ownedPartitions = computeOwnedPartitions();
+            if (ownedPartitions.isEmpty()) {
+                return;
+            }
+
+            Query query = new Query(Criteria.where("schedulePartition").in(ownedPartitions)
+                    .and("nextRunAt").lte(Instant.now().plusSeconds(horizonSeconds)));
+            query.fields().include("_id").include("nextRunAt");
+
+            int loaded = 0;
+            for (Task task : mongoTemplate.find(query, Task.class)) {
+                if (schedule(new ScheduledRun(task.getId(), task.getNextRunAt()))) {
+                    loaded++;
+                }
+            }
+            logger.debug("Scheduler owns {} partitions, loaded {} new runs", ownedPartitions.size(), loaded);
+        } catch (Exception e) {
+            logger.warn("Failed to refresh task schedules: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Advance the timing wheel and fire every run that became due.
+     */
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<ScheduledRun> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        due.forEach(this::fire);
+    }
+
+    private boolean schedule(ScheduledRun run) {
+        synchronized (wheel) {
+            if (run.dueAt().equals(pending.get(run.taskId()))) {
+                return false;
+            }
+            pending.put(run.taskId(), run.dueAt());
+            if (wheel.add(run.dueAt().toEpochMilli(), run)) {
+                return true;
+            }
+        }
+        // Already due (e.g. missed while no replica owned it)
+        fire(run);
+        return true;
+    }
+
+    private void fire(ScheduledRun run) {
+        synchronized (wheel) {
+            pending.remove(run.taskId(), run.dueAt());
+        }
+
+        Task task = claim(run);
+        if (task == null) {
+            return;
+        }
+
+        executor.submit(() -> {
+            try {
+                taskService.executeScheduledRun(run.taskId());
+                logger.info("Scheduled execution of task {} completed", run.taskId());
+            } catch (Exception e) {
+                logger.warn("Scheduled execution of task {} due at {} failed: {}", run.taskId(), run.dueAt(),
+                        e.getMessage());
+                recordMiss(run, e);
+            }
+        });
+
+        // Queue the following run if it is already inside the horizon
+        if (task.getNextRunAt() != null
+                && task.getNextRunAt().isBefore(Instant.now().plusSeconds(horizonSeconds))) {
+            schedule(new ScheduledRun(task.getId(), task.getNextRunAt()));
+        }
+    }
+
+    /**
+     * Move {@code nextRunAt} past this run. Only the replica whose update matches
+     * the expected due time gets to execute it.
+     */
+    private Task claim(ScheduledRun run) {
+        Query byId = new Query(Criteria.where("_id").is(run.taskId()));
+        byId.fields().include("schedule").include("nextRunAt");
+        Task current = mongoTemplate.findOne(byId, Task.class);
+        if (current == null || current.getSchedule() == null || !current.getSchedule().isEnabled()
+                || !run.dueAt().equals(current.getNextRunAt())) {
+            return null;
+        }
+
+        Instant base = run.dueAt().isAfter(Instant.now()) ? run.dueAt() : Instant.now();
+        Instant next = current.getSchedule().nextRunAfter(base);
+        Update update = new Update().inc("version", 1);
+        if (next != null) {
+            update.set("nextRunAt", next);
+        } else {
+            update.unset("nextRunAt");
+        }
+
+        Query query = new Query(Criteria.where("_id").is(run.taskId()).and("nextRunAt").is(run.dueAt()));
+        query.fields().include("nextRunAt");
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Task.class);
+    }
+
+    private void recordMiss(ScheduledRun run, Exception cause) {
+        MissedRun missed = new MissedRun(run.taskId(), run.dueAt(), replicaId,
+                cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+        missed.setExpiresAt(Instant.now().plusSeconds(TimeUnit.DAYS.toSeconds(missedRetentionDays)));
+        try {
+            mongoTemplate.insert(missed);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to record missed run of task {}: {}", run.taskId(), e.getMessage());
+        }
+    }
+
+    private List<Integer> computeOwnedPartitions() {
+        Instant now = Instant.now();
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(replicaId)),
+                new Update().set("heartbeatAt", now), MEMBERS_COLLECTION);
+
+        Query live = new Query(Criteria.where("heartbeatAt").gt(now.minusSeconds(memberTimeoutSeconds)))
+                .with(Sort.by("_id"));
+        List<String> members = new ArrayList<>();
+        for (Document member : mongoTemplate.find(live, Document.class, MEMBERS_COLLECTION)) {
+            members.add(member.getString("_id"));
+        }
+
+        int index = members.indexOf(replicaId);
+        if (index < 0) {
+            return List.of();
+        }
+        List<Integer> owned = new ArrayList<>();
+        for (int partition = index; partition < taskService.getSchedulerPartitions(); partition += members.size()) {
+            owned.add(partition);
+        }
+        return owned;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(replicaId)), MEMBERS_COLLECTION);
+        executor.shutdown();
+    }
+}
@@ -1,72 +1,591 @@
 package com.kaiburr.taskapi.service;
 
+import com.kaiburr.taskapi.exception.TaskConcurrencyException;
+import com.kaiburr.taskapi.model.ActiveExecution;
+import com.kaiburr.taskapi.model.ConcurrencyPolicy;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutionStatus;
+import com.kaiburr.taskapi.model.ExecutionSummary;
 import com.kaiburr.taskapi.model.Task;
 import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import com.kaiburr.taskapi.model.TaskPage;
 import com.kaiburr.taskapi.repository.TaskRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Pattern;
 
 @Service
 public class TaskService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
+
     @Autowired
     private TaskRepository taskRepository;
 
     @Autowired
-    private KubernetesService kubernetesService;
+    private TaskExecutorService taskExecutorService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ExecutionOutputStore executionOutputStore;
+
+    @Autowired
+    private ExecutionArchive executionArchive;
+
+    @Autowired
+    private ExecutionWriteBuffer executionWriteBuffer;
+
+    @Autowired
+    private OutputDedupService outputDedupService;
+
+    @Autowired
+    private OwnerRateLimiter ownerRateLimiter;
+
+    @Autowired
+    private FairShareGate fairShareGate;
+
+    @Autowired
+    private ExecutionRegistry executionRegistry;
+
+    static final int SAVE_ATTEMPTS = 3;
+
+    @Value("${task.scheduler.partitions:64}")
+    private int schedulerPartitions;
+
+    @Value("${task.pipeline.max-tasks:100}")
+    private int pipelineMaxTasks;
 
     public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+        return outputDedupService.resolve(taskRepository.findAll());
     }
 
     public Optional<Task> getTaskById(String id) {
-        return taskRepository.findById(id);
+        return taskRepository.findById(id).map(outputDedupService::resolve);
     }
 
     public Task saveTask(Task task) {
-        return taskRepository.save(task);
+        return saveTask(task, null);
+    }
+
+    /**
+     * Save a task. With an expected revision (from If-Match) the save fails with
+     * {@link OptimisticLockingFailureException} unless the stored task is still at
+     * that revision; without one the latest revision is overwritten.
+     */
+    public Task saveTask(Task task, Long expectedVersion) {
+        Optional<Task> stored = findStoredState(task.getId());
+        // An update is charged to the stored owner, which the request body can't change
+        ownerRateLimiter.acquire(stored.map(Task::getOwner).orElse(task.getOwner()));
+        validateDependencies(task);
+        taskExecutorService.validate(task);
+        prepareForSave(task);
+        if (expectedVersion != null) {
+            // A concurrent append changes the revision too, so the save fails rather than
+            // resetting the token it wrote
+            task.setLastFencingToken(stored.map(Task::getLastFencingToken).orElse(null));
+            task.setVersion(expectedVersion);
+            return taskRepository.save(task);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            if (attempt > 1) {
+                stored = findStoredState(task.getId());
+            }
+            task.setVersion(stored.map(Task::getVersion).orElse(null));
+            task.setLastFencingToken(stored.map(Task::getLastFencingToken).orElse(null));
+            try {
+                return taskRepository.save(task);
+            } catch (OptimisticLockingFailureException e) {
+                // Modified between reading the revision and saving: last write wins
+                if (attempt == SAVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Current revision of a task, read without loading the task itself.
+     */
+    public Optional<Long> findVersion(String id) {
+        return Optional.ofNullable(mongoTemplate.findOne(versionQuery(id), Task.class)).map(Task::getVersion);
+    }
+
+    Query versionQuery(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("version");
+        return query;
+    }
+
+    /**
+     * Owner, revision and fencing token of a stored task. Saving replaces the
+     * whole document and the token is never part of a request, so it is carried
+     * over from here; otherwise a stale lease holder could write after any update.
+     */
+    private Optional<Task> findStoredState(String id) {
+        return id != null ? Optional.ofNullable(mongoTemplate.findOne(storedStateQuery(id), Task.class))
+                : Optional.empty();
+    }
+
+    Query storedStateQuery(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("owner").include("version").include("lastFencingToken");
+        return query;
+    }
+
+    /**
+     * Give tasks written before revisions existed a first revision, so they can
+     * be saved with optimistic locking.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeVersions() {
+        long updated = mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L), Task.class).getModifiedCount();
+        if (updated > 0) {
+            logger.info("Initialized revision of {} tasks", updated);
+        }
+    }
+
+    /**
+     * Derive the stored scheduling fields of a task before it is saved.
+     */
+    public Task prepareForSave(Task task) {
+        // Compute the first due time here so the scheduler only has to read it
+        if (task.getSchedule() != null && task.getSchedule().isEnabled()) {
+            try {
+                task.setNextRunAt(task.getSchedule().nextRunAfter(Instant.now()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid schedule cron expression: " + e.getMessage());
+            }
+        } else {
+            task.setNextRunAt(null);
+        }
+        if (task.getNextRunAt() != null) {
+            if (task.getId() == null) {
+                task.setId(new ObjectId().toHexString());
+            }
+            task.setSchedulePartition(schedulePartition(task.getId()));
+        } else {
+            task.setSchedulePartition(null);
+        }
+        return task;
+    }
+
+    /**
+     * Check that the dependencies of a task exist and don't lead back to it.
+     *
+     * @throws IllegalArgumentException if they don't
+     */
+    public void validateDependencies(Task task) {
+        if (task.getDependsOn() == null || task.getDependsOn().isEmpty()) {
+            return;
+        }
+        task.setDependsOn(List.copyOf(new LinkedHashSet<>(task.getDependsOn())));
+        if (task.getId() != null && task.getDependsOn().contains(task.getId())) {
+            throw new IllegalArgumentException("Task cannot depend on itself");
+        }
+        Map<String, List<String>> upstream = loadDependencyGraph(task.getDependsOn());
+        if (task.getId() != null && upstream.containsKey(task.getId())) {
+            throw new IllegalArgumentException("Dependencies of task " + task.getId() + " form a cycle");
+        }
+    }
+
+    /**
+     * Load the given tasks and everything upstream of them, reading only their
+     * dependencies.
+     *
+     * @return each task id mapped to the ids it depends on
+     * @throws IllegalArgumentException if a task does not exist, or there are more than the pipeline limit
+     */
+    public Map<String, List<String>> loadDependencyGraph(Collection<String> taskIds) {
+        Map<String, List<String>> graph = new LinkedHashMap<>();
+        Collection<String> frontier = new LinkedHashSet<>(taskIds);
+        while (!frontier.isEmpty()) {
+            Query query = new Query(Criteria.where("_id").in(frontier));
+            query.fields().include("dependsOn");
+            for (Task task : mongoTemplate.find(query, Task.class)) {
+                graph.put(task.getId(), task.getDependsOn() != null ? task.getDependsOn() : List.of());
+            }
+            for (String id : frontier) {
+                if (!graph.containsKey(id)) {
+                    throw new IllegalArgumentException("Unknown dependency: " + id);
+                }
+            }
+            if (graph.size() > pipelineMaxTasks) {
+                throw new IllegalArgumentException("Pipeline has more than " + pipelineMaxTasks + " tasks");
+            }
+
+            Collection<String> next = new LinkedHashSet<>();
+            for (String id : frontier) {
+                for (String dependency : graph.get(id)) {
+                    if (!graph.containsKey(dependency)) {
+                        next.add(dependency);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return graph;
+    }
+
+    public int schedulePartition(String taskId) {
+        return Math.floorMod(taskId.hashCode(), schedulerPartitions);
+    }
+
+    public int getSchedulerPartitions() {
+        return schedulerPartitions;
     }
 
     public void deleteTask(String id) {
+        Optional<Task> task = taskRepository.findById(id);
+        task.ifPresent(stored -> ownerRateLimiter.acquire(stored.getOwner()));
         taskRepository.deleteById(id);
+        task.ifPresent(this::deleteStorage);
+    }
+
+    /**
+     * Remove what a deleted task kept outside its document: full outputs in
+     * GridFS, archived executions and the output blobs no other task uses.
+     */
+    public void deleteStorage(Task task) {
+        executionOutputStore.delete(task.getTaskExecutions().stream()
+                .filter(execution -> execution.getOutputFileId() != null)
+                .map(TaskExecution::getId)
+                .filter(Objects::nonNull)
+                .toList());
+        try {
+            executionArchive.delete(task.getId());
+        } catch (IOException e) {
+            logger.warn("Failed to delete archived executions of task {}: {}", task.getId(), e.getMessage());
+        }
+        outputDedupService.release(task.getTaskExecutions());
     }
 
     public List<Task> findTasksByName(String name) {
-        return taskRepository.findByNameContainingIgnoreCase(name);
+        return outputDedupService.resolve(taskRepository.findByNameContainingIgnoreCase(name));
+    }
+
+    /**
+     * List one owner's tasks ordered by name, optionally filtered by a name
+     * substring. Uses the {owner, name} index and a keyset cursor, so every page
+     * costs the same regardless of how deep the client has paged.
+     */
+    public TaskPage findTasksByOwner(String owner, String name, String cursor, int limit) {
+        TaskPage page = toOwnerPage(mongoTemplate.find(ownerPageQuery(owner, name, cursor, limit), Task.class), limit);
+        outputDedupService.resolve(page.getItems());
+        return page;
+    }
+
+    /**
+     * Query for one page of {@link #findTasksByOwner}; it fetches one extra task
+     * to tell whether another page follows.
+     */
+    Query ownerPageQuery(String owner, String name, String cursor, int limit) {
+        Criteria criteria = Criteria.where("owner").is(owner);
+        if (name != null && !name.isEmpty()) {
+            criteria = criteria.and("name").regex(Pattern.quote(name), "i");
+        }
+
+        if (cursor != null && !cursor.isEmpty()) {
+            TaskCursor position = TaskCursor.decode(cursor);
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("name").gt(position.name()),
+                    Criteria.where("name").is(position.name()).and("_id").gt(position.id())));
+        }
+
+        return new Query(criteria)
+                .with(Sort.by(Sort.Order.asc("name"), Sort.Order.asc("_id")))
+                .limit(limit + 1);
+    }
+
+    TaskPage toOwnerPage(List<Task> tasks, int limit) {
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            Task last = tasks.get(limit - 1);
+            nextCursor = new TaskCursor(last.getName(), last.getId()).encode();
+        }
+        return new TaskPage(tasks, nextCursor);
     }
 
     public Task executeTaskCommand(String taskId) throws Exception {
-        Optional<Task> taskOptional = taskRepository.findById(taskId);
-        if (taskOptional.isEmpty()) {
-            throw new RuntimeException("Task not found with id: " + taskId);
+        return executeTaskCommand(taskId, null);
+    }
+
+    /**
+     * Execute a task on behalf of its owner, subject to the owner's rate limit.
+     *
+     * @param priority overrides the task's priority for this execution, may be null
+     */
+    public Task executeTaskCommand(String taskId, ExecutionPriority priority) throws Exception {
+        return executeTask(taskId, priority).task();
+    }
+
+    /**
+     * Same as {@link #executeTaskCommand(String, ExecutionPriority)}, also
+     * returning the new execution.
+     */
+    public ExecutedTask executeTask(String taskId, ExecutionPriority priority) throws Exception {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        ownerRateLimiter.acquire(task.getOwner());
+        return execute(task, priority != null ? priority : priorityOf(task));
+    }
+
+    /**
+     * Execute a task for its schedule. Scheduled runs are not rate limited, but
+     * share execution slots fairly with requested ones.
+     */
+    public Task executeScheduledRun(String taskId) throws Exception {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        return execute(task, priorityOf(task)).task();
+    }
+
+    public ExecutionPriority priorityOf(Task task) {
+        return task.getPriority() != null ? task.getPriority() : ExecutionPriority.NORMAL;
+    }
+
+    private ExecutedTask execute(Task task, ExecutionPriority priority) throws Exception {
+        TaskExecutor executor = taskExecutorService.executorFor(task);
+        ConcurrencyPolicy policy = task.getConcurrencyPolicy() != null
+                ? task.getConcurrencyPolicy()
+                : ConcurrencyPolicy.ALLOW;
+
+        ExecutionHandle handle = executionRegistry.register(task, priority);
+        // Wait for this owner's fair share of the execution slots, in priority order
+        try (FairShareGate.Permit permit = fairShareGate.acquire(task.getOwner(), priority, handle.onCancel())) {
+            if (handle.isCancelled()) {
+                return store(task, cancelledExecution(handle.getExecutionId(), LocalDateTime.now()), policy);
+            }
+            if (policy == ConcurrencyPolicy.ALLOW) {
+                return store(task, executeCommand(executor, task, handle), policy);
+            }
+            return executeUnderLease(executor, task, handle, policy);
+        } catch (CancellationException e) {
+            return store(task, cancelledExecution(handle.getExecutionId(), LocalDateTime.now()), policy);
+        } finally {
+            executionRegistry.finished(handle);
         }
+    }
 
-        Task task = taskOptional.get();
-        String command = task.getCommand();
+    private ExecutedTask executeUnderLease(TaskExecutor executor, Task task, ExecutionHandle handle,
+            ConcurrencyPolicy policy) throws InterruptedException {
+        String taskId = task.getId();
 
-        // Execute the command in Kubernetes pod and capture output
-        TaskExecution execution = executeCommand(taskId, command);
+        // Take the per-task lease so no other replica runs this task concurrently. It is
+        // taken once a slot is free, so waiting for the slot does not use up the lease.
+        Optional<TaskLease> lease = policy == ConcurrencyPolicy.QUEUE
+                ? taskLeaseService.acquireQueued(taskId)
+                : taskLeaseService.tryAcquire(taskId);
+        if (lease.isEmpty()) {
+            throw new TaskConcurrencyException("Task is already being executed: " + taskId);
+        }
 
-        // Add execution to task
-        task.addTaskExecution(execution);
+        try (TaskLeaseService.Renewal renewal = taskLeaseService.keepAlive(lease.get())) {
+            TaskExecution execution = executeCommand(executor, task, handle);
+            return new ExecutedTask(appendExecution(taskId, execution, lease.get().getFencingToken()), execution);
+        } finally {
+            taskLeaseService.release(lease.get());
+        }
+    }
 
-        // Save and return updated task
-        return taskRepository.save(task);
+    /**
+     * Store an execution that ran without a lease.
+     */
+    private ExecutedTask store(Task task, TaskExecution execution, ConcurrencyPolicy policy) {
+        // Without a lease nothing needs fencing, so the write can be batched
+        if (policy == ConcurrencyPolicy.ALLOW && executionWriteBuffer.offer(task.getId(), execution)) {
+            task.getTaskExecutions().add(execution);
+            return new ExecutedTask(task, execution);
+        }
+        return new ExecutedTask(appendExecution(task.getId(), execution, null), execution);
     }
 
-    private TaskExecution executeCommand(String taskId, String command) {
+    /**
+     * Push the execution onto the task without rewriting the whole document, so
+     * concurrent executions never overwrite each other's history. When a fencing
+     * token is given, the write is rejected if a newer lease holder already wrote.
+     */
+    private Task appendExecution(String taskId, TaskExecution execution, Long fencingToken) {
+        // Store repeated output as a blob reference or a delta against the previous run
+        outputDedupService.deduplicate(taskId, execution);
+
+        if (mongoTemplate.updateFirst(appendQuery(taskId, fencingToken), appendUpdate(execution, fencingToken),
+                Task.class).getMatchedCount() == 0) {
+            if (!taskRepository.existsById(taskId)) {
+                throw new RuntimeException("Task not found with id: " + taskId);
+            }
+            throw new TaskConcurrencyException("Execution lease for task " + taskId + " was superseded");
+        }
+
+        return taskRepository.findById(taskId)
+                .map(outputDedupService::resolve)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+    }
+
+    Query appendQuery(String taskId, Long fencingToken) {
+        Criteria criteria = Criteria.where("_id").is(taskId);
+        if (fencingToken != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("lastFencingToken").exists(false),
+                    Criteria.where("lastFencingToken").lt(fencingToken));
+        }
+        return new Query(criteria);
+    }
+
+    Update appendUpdate(TaskExecution execution, Long fencingToken) {
+        Update update = new Update().push("taskExecutions", execution).inc("version", 1);
+        if (fencingToken != null) {
+            update.set("lastFencingToken", fencingToken);
+        }
+        return update;
+    }
+
+    private TaskExecution executeCommand(TaskExecutor executor, Task task, ExecutionHandle handle)
+            throws InterruptedException {
         LocalDateTime startTime = LocalDateTime.now();
+        executionRegistry.started(handle);
+        ExecutionResult result = executor.execute(task.getId(), task.getCommand(), handle);
+        TaskExecution execution = toExecution(handle.getExecutionId(), startTime, result);
+        execution.setExecutor(executor.getBackend());
+        return execution;
+    }
+
+    /**
+     * Execution record of an execution cancelled before it started.
+     */
+    public TaskExecution cancelledExecution(String executionId, LocalDateTime startTime) {
+        TaskExecution execution = new TaskExecution(startTime, LocalDateTime.now(), "Cancelled before it started");
+        execution.setId(executionId);
+        execution.setStatus(ExecutionStatus.CANCELLED);
+        return execution;
+    }
+
+    /**
+     * Cancel a queued or running execution of a task. It is stored on the task
+     * with status CANCELLED and the output written until then.
+     *
+     * @return the execution, or empty if it is not queued or running
+     */
+    public Optional<ActiveExecution> cancelExecution(String taskId, String executionId) {
+        return executionRegistry.cancel(taskId, executionId);
+    }
 
-        // Execute command in Kubernetes pod using busybox
-        String output = kubernetesService.executeCommandInPod(taskId, command);
+    public List<ActiveExecution> getActiveExecutions(String taskId) {
+        return executionRegistry.findActive(taskId);
+    }
 
+    /**
+     * Build the execution record of a finished command. A spilled full output is
+     * moved to GridFS, so this may block on I/O.
+     */
+    public TaskExecution toExecution(String executionId, LocalDateTime startTime, ExecutionResult result) {
+        CapturedOutput output = result.output();
         LocalDateTime endTime = LocalDateTime.now();
 
-        return new TaskExecution(startTime, endTime, output);
+        TaskExecution execution = new TaskExecution(startTime, endTime, output.text());
+        execution.setId(executionId);
+        execution.setStatus(result.cancelled() ? ExecutionStatus.CANCELLED : ExecutionStatus.COMPLETED);
+        execution.setExitCode(result.exitCode());
+        execution.setOutputBytes(output.totalBytes());
+        execution.setOutputTruncated(output.elided());
+
+        // Move the full output into GridFS so it is reachable from any replica
+        if (output.file() != null) {
+            try {
+                execution.setOutputFileId(executionOutputStore.store(executionId, output.file()));
+                Files.deleteIfExists(output.file());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to store output of execution {}, keeping local copy: {}",
+                        executionId, e.getMessage());
+            }
+        }
+        return execution;
+    }
+
+    /**
+     * Executions of a task that started within [from, to], oldest first. Ranges
+     * reaching past the task document are completed from the archive. An
+     * execution archived by a compaction that crashed before removing it from
+     * the task is returned once, from the task.
+     */
+    public List<TaskExecution> getExecutions(Task task, LocalDateTime from, LocalDateTime to) throws IOException {
+        List<TaskExecution> executions = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        task.getTaskExecutions().stream()
+                .filter(execution -> !execution.getStartTime().isBefore(from) && !execution.getStartTime().isAfter(to))
+                .filter(execution -> execution.getId() == null || ids.add(execution.getId()))
+                .forEach(executions::add);
+        if (executionArchive.isEnabled()) {
+            executionArchive.read(task.getId(), from, to).stream()
+                    .filter(execution -> execution.getId() == null || ids.add(execution.getId()))
+                    .forEach(executions::add);
+        }
+        // Executions are appended to the task as they complete, not as they start
+        executions.sort(Comparator.comparing(TaskExecution::getStartTime));
+        return executions;
+    }
+
+    /**
+     * Rolled-up statistics of a task's compacted executions, oldest first.
+     */
+    public List<ExecutionSummary> getExecutionSummaries(String taskId, ExecutionSummary.Granularity granularity) {
+        return mongoTemplate.find(executionSummariesQuery(taskId, granularity), ExecutionSummary.class);
+    }
+
+    Query executionSummariesQuery(String taskId, ExecutionSummary.Granularity granularity) {
+        Criteria criteria = Criteria.where("taskId").is(taskId);
+        if (granularity != null) {
+            criteria = criteria.and("granularity").is(granularity.name());
+        }
+        return new Query(criteria).with(Sort.by("bucketStart"));
+    }
+
+    /**
+     * Find an execution by its id across all tasks.
+     */
+    public Optional<TaskExecution> findExecutionById(String executionId) {
+        return taskRepository.findByExecutionId(executionId)
+                .map(outputDedupService::resolve)
+                .flatMap(task -> task.getTaskExecutions().stream()
+                        .filter(execution -> executionId.equals(execution.getId()))
+                        .findFirst());
     }
 
     public boolean existsById(String id) {
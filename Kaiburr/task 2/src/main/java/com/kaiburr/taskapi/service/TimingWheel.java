@@ -0,0 +1,109 @@
+package com.kaiburr.taskapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel. Adding a timer and advancing the clock are O(1)
+ * per timer regardless of how many timers are pending, so a single thread can
+ * drive a very large number of schedules.
+ *
+ * <p>Each level has {@code sizes[l]} buckets of width {@code tick(l)}, where a
+ * level's tick equals the full span of the level below it. Timers far in the
+ * future sit in a coarse level and cascade down as the clock approaches them.
+ * Not thread-safe on its own; callers synchronize.
+ */
+class TimingWheel<T> {
+
+    private record Timer<T>(long expiresAt, T item) {
+    }
+
+    private final long[] ticks;
+    private final int[] sizes;
+    private final List<List<Timer<T>>[]> levels = new ArrayList<>();
+    private long currentTime;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long baseTickMillis, int[] sizes, long startMillis) {
+        this.sizes = sizes.clone();
+        this.ticks = new long[sizes.length];
+        long tick = baseTickMillis;
+        for (int level = 0; level < sizes.length; level++) {
+            ticks[level] = tick;
+            List<Timer<T>>[] buckets = new List[sizes[level]];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new ArrayList<>();
+            }
+            levels.add(buckets);
+            tick *= sizes[level];
+        }
+        this.currentTime = startMillis - (startMillis % baseTickMillis);
+    }
+
+    /**
+     * Total time covered by the wheel; timers further out than this are rejected.
+     */
+    long spanMillis() {
+        int top = sizes.length - 1;
+        return ticks[top] * sizes[top];
+    }
+
+    /**
+     * Add a timer. Returns false if it is already due (the caller should fire it
+     * now) or lies beyond the wheel span.
+     */
+    boolean add(long expiresAt, T item) {
+        if (expiresAt < currentTime + ticks[0]) {
+            return false;
+        }
+        for (int level = 0; level < sizes.length; level++) {
+            long levelTime = currentTime - (currentTime % ticks[level]);
+            if (expiresAt < levelTime + ticks[level] * sizes[level]) {
+                int slot = (int) ((expiresAt / ticks[level]) % sizes[level]);
+                levels.get(level)[slot].add(new Timer<>(expiresAt, item));
+                size++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move the clock forward to {@code now} and return every item that expired.
+     */
+    List<T> advance(long now) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + ticks[0] <= now) {
+            currentTime += ticks[0];
+
+            // Cascade coarse buckets whose window starts now into finer levels
+            for (int level = sizes.length - 1; level > 0; level--) {
+                if (currentTime % ticks[level] == 0) {
+                    int slot = (int) ((currentTime / ticks[level]) % sizes[level]);
+                    List<Timer<T>> bucket = levels.get(level)[slot];
+                    levels.get(level)[slot] = new ArrayList<>();
+                    size -= bucket.size();
+                    for (Timer<T> timer : bucket) {
+                        if (!add(timer.expiresAt(), timer.item())) {
+                            expired.add(timer.item());
+                        }
+                    }
+                }
+            }
+
+            int slot = (int) ((currentTime / ticks[0]) % sizes[0]);
+            List<Timer<T>> bucket = levels.get(0)[slot];
+            if (!bucket.isEmpty()) {
+                levels.get(0)[slot] = new ArrayList<>();
+                size -= bucket.size();
+                bucket.forEach(timer -> expired.add(timer.item()));
+            }
+        }
+        return expired;
+    }
+
+    int size() {
+        return size;
+    }
+}
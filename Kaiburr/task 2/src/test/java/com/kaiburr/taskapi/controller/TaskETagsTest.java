@@ -0,0 +1,74 @@
+package com.kaiburr.taskapi.controller;
+
+import com.kaiburr.taskapi.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskETagsTest {
+
+    @Test
+    void formatsRevisionAsStrongETag() {
+        assertEquals("\"7\"", TaskETags.of(7));
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparisonAndLists() {
+        assertTrue(TaskETags.matches("\"7\"", 7));
+        assertTrue(TaskETags.matches("W/\"7\"", 7));
+        assertTrue(TaskETags.matches("\"3\", \"7\"", 7));
+        assertTrue(TaskETags.matches("*", 7));
+
+        assertFalse(TaskETags.matches(null, 7));
+        assertFalse(TaskETags.matches("\"8\"", 7));
+        assertFalse(TaskETags.matches("7", 7));
+    }
+
+    @Test
+    void ifMatchIsOptional() {
+        assertNull(TaskETags.expectedVersion(null, Optional.of(7L)));
+        assertNull(TaskETags.expectedVersion(null, Optional.empty()));
+    }
+
+    @Test
+    void ifMatchParsesStrongETags() {
+        assertEquals(7L, TaskETags.expectedVersion("\"7\"", Optional.of(7L)));
+        assertEquals(7L, TaskETags.expectedVersion("  \"7\" ", Optional.of(7L)));
+        // A stale revision is returned as is; the save rejects it
+        assertEquals(6L, TaskETags.expectedVersion("\"6\"", Optional.of(7L)));
+    }
+
+    @Test
+    void ifMatchStarRequiresAnExistingTask() {
+        assertEquals(7L, TaskETags.expectedVersion("*", Optional.of(7L)));
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> TaskETags.expectedVersion("*", Optional.empty()));
+    }
+
+    @Test
+    void ifMatchRejectsWeakMalformedAndMissingTargets() {
+        for (String ifMatch : new String[] {"W/\"7\"", "7", "\"\"", "\"seven\"", "\"7", "\"3\", \"7\""}) {
+            assertThrows(OptimisticLockingFailureException.class,
+                    () -> TaskETags.expectedVersion(ifMatch, Optional.of(7L)), ifMatch);
+        }
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> TaskETags.expectedVersion("\"7\"", Optional.empty()));
+    }
+
+    @Test
+    void failedPreconditionIsAnswered412() {
+        OptimisticLockingFailureException failure = assertThrows(OptimisticLockingFailureException.class,
+                () -> TaskETags.expectedVersion("W/\"7\"", Optional.of(7L)));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED,
+                new GlobalExceptionHandler().handleOptimisticLockingFailureException(failure).getStatusCode());
+    }
+}
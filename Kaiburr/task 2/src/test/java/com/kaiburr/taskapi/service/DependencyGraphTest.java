@@ -0,0 +1,123 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.Task;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DependencyGraphTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final Map<String, Task> stored = new HashMap<>();
+    private final TaskService taskService = new TaskService();
+    private final PipelineService pipelineService = new PipelineService();
+
+    @BeforeEach
+    void setUp() {
+        // Answers the dependency queries of loadDependencyGraph from the stored tasks
+        when(mongoTemplate.find(any(Query.class), eq(Task.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Collection<?> ids = (Collection<?>) query.getQueryObject().get("_id", Document.class).get("$in");
+            return ids.stream().filter(stored::containsKey).map(stored::get).toList();
+        });
+        ReflectionTestUtils.setField(taskService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(taskService, "pipelineMaxTasks", 100);
+        ReflectionTestUtils.setField(pipelineService, "taskService", taskService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipelineService.shutdown();
+    }
+
+    @Test
+    void acceptsAcyclicDependenciesAndDropsDuplicates() {
+        store("a");
+        store("b", "a");
+        store("c", "a", "b");
+        Task task = task("d", "c", "b", "c");
+
+        assertDoesNotThrow(() -> taskService.validateDependencies(task));
+        assertEquals(List.of("c", "b"), task.getDependsOn());
+    }
+
+    @Test
+    void rejectsDependencyOnItself() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> taskService.validateDependencies(task("a", "a")));
+        assertEquals("Task cannot depend on itself", e.getMessage());
+    }
+
+    @Test
+    void rejectsDependenciesLeadingBackToTheTask() {
+        store("a", "c");
+        store("b", "a");
+        store("c");
+
+        // c -> b -> a -> c
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> taskService.validateDependencies(task("c", "b")));
+        assertEquals("Dependencies of task c form a cycle", e.getMessage());
+    }
+
+    @Test
+    void rejectsUnknownDependency() {
+        store("a", "missing");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> taskService.validateDependencies(task("b", "a")));
+        assertEquals("Unknown dependency: missing", e.getMessage());
+    }
+
+    @Test
+    void plansDiamondUpstreamOfTask() {
+        store("a");
+        store("b", "a");
+        store("c", "a");
+        store("d", "b", "c");
+        store("unrelated", "d");
+
+        Map<String, List<String>> graph = pipelineService.plan("d");
+
+        assertEquals(Map.of("a", List.of(), "b", List.of("a"), "c", List.of("a"), "d", List.of("b", "c")), graph);
+    }
+
+    @Test
+    void refusesToPlanCycleClosedByConcurrentSaves() {
+        // Each save was valid on its own, but together they close a -> b -> a
+        store("a", "b");
+        store("b", "a");
+        store("c", "a");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> pipelineService.plan("c"));
+        assertEquals("Dependencies of task c form a cycle", e.getMessage());
+    }
+
+    private void store(String id, String... dependsOn) {
+        stored.put(id, task(id, dependsOn));
+    }
+
+    private static Task task(String id, String... dependsOn) {
+        Task task = new Task();
+        task.setId(id);
+        task.setDependsOn(List.of(dependsOn));
+        return task;
+    }
+}
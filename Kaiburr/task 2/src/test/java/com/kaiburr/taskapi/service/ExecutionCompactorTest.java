@@ -0,0 +1,172 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutionCompactorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @TempDir
+    Path archiveDirectory;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final TaskLeaseService taskLeaseService = mock(TaskLeaseService.class);
+    private final ExecutionOutputStore executionOutputStore = mock(ExecutionOutputStore.class);
+    private final OutputDedupService outputDedupService = mock(OutputDedupService.class);
+    private MappingMongoConverter converter;
+    private ExecutionArchive executionArchive;
+    private Document stored;
+
+    @BeforeEach
+    void setUp() {
+        // The converter Spring Boot configures, so the task is stored exactly as in Mongo
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        Task task = new Task("task-1", "backup", "team-a", "echo backup");
+        task.setTaskExecutions(List.of(
+                execution("exec-old-1", NOW.minusDays(60), "file-1"),
+                execution("exec-old-2", NOW.minusDays(45), null),
+                execution("exec-old-3", NOW.minusDays(40), null),
+                execution("exec-new", NOW.minusHours(1), null)));
+        stored = new Document();
+        converter.write(task, stored);
+
+        when(taskLeaseService.tryAcquire(anyString())).thenReturn(Optional.of(new TaskLease()));
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("tasks"))).thenReturn(List.of(stored));
+        when(mongoTemplate.findById(stored.get("_id"), Task.class))
+                .thenAnswer(invocation -> converter.read(Task.class, stored));
+        when(outputDedupService.resolve(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (executionArchive != null) {
+            executionArchive.stop();
+        }
+    }
+
+    @Test
+    void storesExecutionIdsAsUnderscoreId() {
+        Document execution = stored.getList("taskExecutions", Document.class).get(0);
+
+        assertEquals("exec-old-1", execution.get("_id"));
+        assertFalse(execution.containsKey("id"), execution.toJson());
+    }
+
+    @Test
+    void pullsExpiredExecutionsByIdAndDeletesTheirOutputs() throws IOException {
+        ExecutionCompactor compactor = compactor(false);
+
+        compactor.compact();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Document.class), eq("tasks"));
+        assertEquals(1, query.getValue().getFieldsObject().get("taskExecutions._id"));
+
+        // exec-old-3 is expired too, but among the last two appended that keepLast protects
+        assertEquals(new Document("_id", new Document("$in", List.of("exec-old-1", "exec-old-2"))), pulled());
+        verify(executionOutputStore).delete(List.of("exec-old-1"));
+    }
+
+    @Test
+    void archivesExpiredExecutionsBeforePullingThem() throws IOException {
+        ExecutionCompactor compactor = compactor(true);
+
+        compactor.compact();
+
+        assertEquals(new Document("_id", new Document("$in", List.of("exec-old-1", "exec-old-2"))), pulled());
+        List<TaskExecution> archived = executionArchive.read("task-1", NOW.minusDays(90), NOW);
+        assertEquals(List.of("exec-old-1", "exec-old-2"), archived.stream().map(TaskExecution::getId).toList());
+        assertEquals(NOW.minusDays(60), archived.get(0).getStartTime());
+    }
+
+    @Test
+    void leavesExecutionsInTaskWhenTheyCannotBeArchived() throws IOException {
+        when(mongoTemplate.findById(stored.get("_id"), Task.class)).thenReturn(null);
+        ExecutionCompactor compactor = compactor(true);
+
+        compactor.compact();
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq("tasks"));
+        verify(executionOutputStore, never()).delete(any());
+    }
+
+    private ExecutionCompactor compactor(boolean archiveEnabled) throws IOException {
+        executionArchive = new ExecutionArchive(Jackson2ObjectMapperBuilder.json().build(),
+                archiveDirectory.toString(), archiveEnabled, 365);
+        if (archiveEnabled) {
+            executionArchive.start();
+        }
+
+        ExecutionCompactor compactor = new ExecutionCompactor();
+        ReflectionTestUtils.setField(compactor, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(compactor, "taskLeaseService", taskLeaseService);
+        ReflectionTestUtils.setField(compactor, "executionOutputStore", executionOutputStore);
+        ReflectionTestUtils.setField(compactor, "executionArchive", executionArchive);
+        ReflectionTestUtils.setField(compactor, "outputDedupService", outputDedupService);
+        ReflectionTestUtils.setField(compactor, "enabled", true);
+        ReflectionTestUtils.setField(compactor, "defaultKeepLast", 2);
+        ReflectionTestUtils.setField(compactor, "defaultKeepDays", 30);
+        ReflectionTestUtils.setField(compactor, "batchSize", 20);
+        ReflectionTestUtils.setField(compactor, "maxExecutionsPerTask", 500);
+        ReflectionTestUtils.setField(compactor, "dailyAfterDays", 30);
+        return compactor;
+    }
+
+    /**
+     * Condition of the $pull the compactor sent.
+     */
+    private Document pulled() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq("tasks"));
+        return update.getValue().getUpdateObject().get("$pull", Document.class).get("taskExecutions", Document.class);
+    }
+
+    private static TaskExecution execution(String id, LocalDateTime startTime, String outputFileId) {
+        TaskExecution execution = new TaskExecution(startTime, startTime.plusSeconds(2), "done");
+        execution.setId(id);
+        execution.setExitCode(0);
+        execution.setOutputFileId(outputFileId);
+        return execution;
+    }
+}
@@ -0,0 +1,108 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutionWriteBufferTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final AtomicBoolean mongoUp = new AtomicBoolean();
+    private ExecutionWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        // Bulk writes always fail; single updates fail until Mongo is "back"
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("connection refused"));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Task.class)))
+                .thenAnswer(invocation -> {
+                    if (!mongoUp.get()) {
+                        throw new DataAccessResourceFailureException("connection refused");
+                    }
+                    return UpdateResult.acknowledged(1, 1L, null);
+                });
+
+        buffer = new ExecutionWriteBuffer(true, 10, 1, 10, 2, 1, 5000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(buffer, "outputDedupService", mock(OutputDedupService.class));
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        mongoUp.set(true);
+        buffer.shutdown();
+    }
+
+    @Test
+    void keepsRetryingFailedBatchUntilExecutionsAreOnTheTask() {
+        assertTrue(buffer.offer("task-1", execution("exec-1")));
+
+        // The bulk attempts are used up and single writes keep failing: nothing may be dropped
+        verify(mongoTemplate, timeout(5000).atLeast(3))
+                .updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Task.class));
+        mongoUp.set(true);
+
+        ArgumentCaptor<Query> written = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, timeout(5000).atLeast(4))
+                .updateFirst(written.capture(), any(UpdateDefinition.class), eq(Task.class));
+        Document lastWrite = written.getValue().getQueryObject();
+        assertEquals("task-1", lastWrite.get("_id"));
+        assertEquals(List.of("exec-1"),
+                lastWrite.get("taskExecutions.id", Document.class).get("$nin"));
+    }
+
+    @Test
+    void refusesNewExecutionsWhileAFailedBatchIsRetried() {
+        assertTrue(buffer.offer("task-1", execution("exec-1")));
+        verify(mongoTemplate, timeout(5000).atLeast(1))
+                .updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Task.class));
+
+        // Callers write synchronously instead of piling up behind the failing batch
+        assertFalse(buffer.offer("task-2", execution("exec-2")));
+
+        mongoUp.set(true);
+        verify(mongoTemplate, timeout(5000).atLeast(2))
+                .updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Task.class));
+        long deadline = System.currentTimeMillis() + 5000;
+        boolean accepted = false;
+        while (!accepted && System.currentTimeMillis() < deadline) {
+            accepted = buffer.offer("task-2", execution("exec-2"));
+        }
+        assertTrue(accepted);
+    }
+
+    private static TaskExecution execution(String id) {
+        TaskExecution execution = new TaskExecution(LocalDateTime.now(), LocalDateTime.now(), "ok");
+        execution.setId(id);
+        return execution;
+    }
+}
@@ -0,0 +1,175 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.RateLimitExceededException;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairShareGateTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> waiters = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (Thread waiter : waiters) {
+            waiter.interrupt();
+            waiter.join(5000);
+        }
+    }
+
+    @Test
+    void admitsOwnerWithFewExecutionsBeforeBacklogOfAnother() throws InterruptedException {
+        FairShareGate gate = gate(1, 60, Map.of());
+        FairShareGate.Permit running = gate.acquire("a");
+
+        queue(gate, "a", "a2", ExecutionPriority.NORMAL);
+        queue(gate, "a", "a3", ExecutionPriority.NORMAL);
+        queue(gate, "b", "b1", ExecutionPriority.NORMAL);
+        running.close();
+
+        awaitAdmitted(3);
+        assertEquals(List.of("b1", "a2", "a3"), admitted);
+    }
+
+    @Test
+    void givesHeavierOwnerProportionallyMoreSlots() throws InterruptedException {
+        FairShareGate gate = gate(1, 60, Map.of("heavy", 2));
+        FairShareGate.Permit running = gate.acquire("other");
+
+        for (int i = 1; i <= 4; i++) {
+            queue(gate, "heavy", "h" + i, ExecutionPriority.NORMAL);
+        }
+        queue(gate, "light", "l1", ExecutionPriority.NORMAL);
+        queue(gate, "light", "l2", ExecutionPriority.NORMAL);
+        running.close();
+
+        awaitAdmitted(6);
+        assertEquals(List.of("h1", "l1", "h2", "h3", "l2", "h4"), admitted);
+    }
+
+    @Test
+    void admitsHigherPriorityFirstWhateverTheOwnerTags() throws InterruptedException {
+        FairShareGate gate = gate(1, 60, Map.of());
+        FairShareGate.Permit running = gate.acquire("a");
+
+        queue(gate, "b", "low", ExecutionPriority.LOW);
+        queue(gate, "a", "normal", ExecutionPriority.NORMAL);
+        queue(gate, "a", "critical", ExecutionPriority.CRITICAL);
+        running.close();
+
+        awaitAdmitted(3);
+        assertEquals(List.of("critical", "normal", "low"), admitted);
+    }
+
+    @Test
+    void agesLongWaitingExecutionUpAPriority() throws InterruptedException {
+        FairShareGate gate = gate(1, 60, Map.of());
+        FairShareGate.Permit running = gate.acquire("a");
+
+        queue(gate, "b", "low", ExecutionPriority.LOW);
+        // One aging interval raises it to NORMAL, where it has waited longest
+        Thread.sleep(1100);
+        queue(gate, "c", "normal", ExecutionPriority.NORMAL);
+        queue(gate, "d", "high", ExecutionPriority.HIGH);
+        running.close();
+
+        awaitAdmitted(3);
+        assertEquals(List.of("high", "low", "normal"), admitted);
+    }
+
+    @Test
+    void timesOutWaitingExecutionAndKeepsSlotCount() throws InterruptedException {
+        FairShareGate gate = gate(1, 1, Map.of());
+        FairShareGate.Permit running = gate.acquire("a");
+
+        long started = System.nanoTime();
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class, () -> gate.acquire("b"));
+        assertTrue(System.nanoTime() - started >= 900_000_000L, "gave up before the queue timeout");
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertEquals(0, waiting());
+
+        // The timed out execution must not have taken or leaked a slot
+        running.close();
+        gate.acquire("b").close();
+        gate.acquire("c").close();
+    }
+
+    @Test
+    void withdrawsCancelledExecution() throws InterruptedException {
+        FairShareGate gate = gate(1, 60, Map.of());
+        FairShareGate.Permit running = gate.acquire("a");
+        CompletableFuture<Void> cancellation = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS)
+                .execute(() -> cancellation.complete(null));
+
+        assertThrows(CancellationException.class,
+                () -> gate.acquire("b", ExecutionPriority.NORMAL, cancellation));
+        assertEquals(0, waiting());
+
+        running.close();
+        gate.acquire("c").close();
+    }
+
+    private FairShareGate gate(int maxConcurrent, long queueTimeoutSeconds, Map<String, Integer> weights) {
+        OwnerQuotaService ownerQuotaService = new OwnerQuotaService() {
+            @Override
+            public Limits limitsFor(String owner) {
+                return new Limits(20, 40, weights.getOrDefault(owner, 1));
+            }
+        };
+        FairShareGate gate = new FairShareGate(maxConcurrent, queueTimeoutSeconds, 1, meterRegistry);
+        ReflectionTestUtils.setField(gate, "ownerQuotaService", ownerQuotaService);
+        return gate;
+    }
+
+    /**
+     * Start an execution that records its label once admitted and then
+     * releases its slot, and wait until it is queued.
+     */
+    private void queue(FairShareGate gate, String owner, String label, ExecutionPriority priority)
+            throws InterruptedException {
+        double before = waiting();
+        Thread waiter = new Thread(() -> {
+            try (FairShareGate.Permit permit = gate.acquire(owner, priority, null)) {
+                admitted.add(label);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiters.add(waiter);
+        waiter.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (waiting() <= before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(before + 1, waiting(), 0.0);
+    }
+
+    private void awaitAdmitted(int count) throws InterruptedException {
+        for (Thread waiter : waiters) {
+            waiter.join(5000);
+        }
+        assertEquals(count, admitted.size());
+    }
+
+    private double waiting() {
+        return meterRegistry.get("task.fair_share.waiting").gauge().value();
+    }
+}
@@ -0,0 +1,111 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputCaptureTest {
+
+    private static final String EXECUTION_ID = "3f2b8c1e-0000-4000-8000-000000000001";
+
+    private Path directory;
+    private Path spillFile;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("output-capture-test");
+        spillFile = directory.resolve("spill").resolve(EXECUTION_ID + ".out");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void keepsSmallOutputWholeInMemory() throws IOException {
+        OutputCapture capture = new OutputCapture(EXECUTION_ID, spillFile, 16, 4, 4);
+        capture.write("hello".getBytes(StandardCharsets.UTF_8));
+
+        CapturedOutput output = capture.finish();
+
+        assertEquals("hello", output.text());
+        assertEquals(5, output.totalBytes());
+        assertFalse(output.elided());
+        assertNull(output.file());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    @Test
+    void keepsOutputOfExactlyHeadPlusTailWhole() throws IOException {
+        OutputCapture capture = new OutputCapture(EXECUTION_ID, spillFile, 0, 4, 4);
+        capture.write("abcdefgh".getBytes(StandardCharsets.UTF_8));
+
+        CapturedOutput output = capture.finish();
+
+        assertEquals("abcdefgh", output.text());
+        assertFalse(output.elided());
+    }
+
+    @Test
+    void storesHeadAndTailAndSpillsFullOutput() throws IOException {
+        OutputCapture capture = new OutputCapture(EXECUTION_ID, spillFile, 8, 4, 6);
+        byte[] content = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+        // Written in uneven chunks, so the tail ring buffer wraps
+        capture.write(content, 0, 3);
+        capture.write(content, 3, 10);
+        capture.write(content, 13, 1);
+        capture.write(content, 14, content.length - 14);
+
+        CapturedOutput output = capture.finish();
+
+        assertTrue(output.elided());
+        assertEquals(content.length, output.totalBytes());
+        assertTrue(output.text().startsWith("0123"), output.text());
+        assertTrue(output.text().endsWith("uvwxyz"), output.text());
+        assertTrue(output.text().contains("26 bytes omitted"), output.text());
+        assertTrue(output.text().contains("/api/executions/" + EXECUTION_ID + "/output"), output.text());
+        assertEquals(spillFile, output.file());
+        assertArrayEquals(content, Files.readAllBytes(spillFile));
+    }
+
+    @Test
+    void writesSpillFileWhenOutputExceedsHeadAndTailButNotTheThreshold() throws IOException {
+        OutputCapture capture = new OutputCapture(EXECUTION_ID, spillFile, 1024, 2, 2);
+        byte[] content = "abcdefgh".getBytes(StandardCharsets.UTF_8);
+        capture.write(content);
+
+        CapturedOutput output = capture.finish();
+
+        assertTrue(output.elided());
+        assertArrayEquals(content, Files.readAllBytes(output.file()));
+    }
+
+    @Test
+    void discardDeletesSpilledData() throws IOException {
+        OutputCapture capture = new OutputCapture(EXECUTION_ID, spillFile, 4, 1, 1);
+        capture.write("more than four bytes".getBytes(StandardCharsets.UTF_8));
+        assertTrue(Files.exists(spillFile));
+
+        capture.discard();
+
+        assertFalse(Files.exists(spillFile));
+    }
+}
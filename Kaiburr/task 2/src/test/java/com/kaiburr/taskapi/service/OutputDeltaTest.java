@@ -0,0 +1,80 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputDeltaTest {
+
+    private static final String BASE = "Building project...\n".repeat(50)
+            + "Tests run: 120, Failures: 0, Errors: 0, Skipped: 2\n"
+            + "BUILD SUCCESS\nTotal time: 41.207 s\n";
+
+    @Test
+    void roundTripsIdenticalOutputAsSingleCopy() {
+        String delta = OutputDelta.encode(BASE, BASE);
+
+        assertEquals("C0," + BASE.length() + ";", delta);
+        assertEquals(BASE, OutputDelta.decode(BASE, delta));
+    }
+
+    @Test
+    void roundTripsSmallEditsWithASmallDelta() {
+        String target = BASE.replace("41.207", "39.866").replace("Skipped: 2", "Skipped: 3")
+                + "Finished at: 2024-03-01T12:00:00Z\n";
+
+        String delta = OutputDelta.encode(BASE, target);
+
+        assertEquals(target, OutputDelta.decode(BASE, delta));
+        assertTrue(delta.length() < target.length() / 4, delta);
+    }
+
+    @Test
+    void roundTripsUnrelatedAndEdgeCaseOutputs() {
+        String[] targets = {
+                "",
+                "short",
+                "no block of the base appears in this output at all, so it is one literal",
+                "I12:looks like an op;C0,5;",
+                "\u00e9t\u00e9 \u2713 " + BASE.substring(0, 100),
+                BASE.substring(BASE.length() - 20) + BASE.substring(0, 40),
+        };
+        for (String target : targets) {
+            assertEquals(target, OutputDelta.decode(BASE, OutputDelta.encode(BASE, target)));
+        }
+    }
+
+    @Test
+    void roundTripsAgainstShortAndEmptyBases() {
+        assertEquals(BASE, OutputDelta.decode("", OutputDelta.encode("", BASE)));
+        assertEquals(BASE, OutputDelta.decode("tiny", OutputDelta.encode("tiny", BASE)));
+    }
+
+    @Test
+    void roundTripsRandomMutations() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder target = new StringBuilder(BASE);
+            for (int edit = random.nextInt(5); edit >= 0; edit--) {
+                int position = random.nextInt(target.length());
+                switch (random.nextInt(3)) {
+                    case 0 -> target.insert(position, "inserted " + random.nextInt(1000));
+                    case 1 -> target.delete(position, Math.min(target.length(), position + random.nextInt(64)));
+                    default -> target.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                }
+            }
+            String expected = target.toString();
+
+            assertEquals(expected, OutputDelta.decode(BASE, OutputDelta.encode(BASE, expected)));
+        }
+    }
+
+    @Test
+    void rejectsCorruptDeltas() {
+        assertThrows(IllegalArgumentException.class, () -> OutputDelta.decode(BASE, "X1;"));
+    }
+}
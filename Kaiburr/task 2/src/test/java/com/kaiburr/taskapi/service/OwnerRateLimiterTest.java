@@ -0,0 +1,74 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OwnerRateLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final OwnerRateLimiter.OwnerBucket bucket = new OwnerRateLimiter.OwnerBucket(2);
+    private final long start = System.nanoTime();
+
+    @Test
+    void allowsBurstThenReportsWaitForNextToken() {
+        assertEquals(0, bucket.tryTake(10, 2, start));
+        assertEquals(0, bucket.tryTake(10, 2, start));
+
+        assertEquals(100 * MILLIS, bucket.tryTake(10, 2, start));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        bucket.tryTake(10, 2, start);
+        bucket.tryTake(10, 2, start);
+
+        long wait = bucket.tryTake(10, 2, start + 50 * MILLIS);
+        assertTrue(wait > 49 * MILLIS && wait <= 51 * MILLIS, Long.toString(wait));
+        assertEquals(0, bucket.tryTake(10, 2, start + 100 * MILLIS));
+        assertTrue(bucket.tryTake(10, 2, start + 100 * MILLIS) > 0);
+    }
+
+    @Test
+    void refillStopsAtBurst() {
+        bucket.tryTake(10, 2, start);
+
+        long idle = start + 10_000 * MILLIS;
+        assertEquals(0, bucket.tryTake(10, 2, idle));
+        assertEquals(0, bucket.tryTake(10, 2, idle));
+        assertTrue(bucket.tryTake(10, 2, idle) > 0);
+    }
+
+    @Test
+    void refundReturnsATokenUpToBurst() {
+        bucket.tryTake(10, 2, start);
+        bucket.tryTake(10, 2, start);
+
+        bucket.refund(2);
+        assertEquals(0, bucket.tryTake(10, 2, start));
+
+        bucket.refund(2);
+        bucket.refund(2);
+        bucket.refund(2);
+        assertEquals(0, bucket.tryTake(10, 2, start));
+        assertEquals(0, bucket.tryTake(10, 2, start));
+        assertTrue(bucket.tryTake(10, 2, start) > 0);
+    }
+
+    @Test
+    void leasedTokensAreTakenPerWindow() {
+        assertNull(bucket.takeLeased(7));
+
+        bucket.setLease(7, 1, false);
+        assertEquals(Boolean.TRUE, bucket.takeLeased(7));
+        assertNull(bucket.takeLeased(7));
+        assertNull(bucket.takeLeased(8));
+
+        bucket.setLease(8, 1, true);
+        assertEquals(Boolean.TRUE, bucket.takeLeased(8));
+        assertEquals(Boolean.FALSE, bucket.takeLeased(8));
+    }
+}
@@ -0,0 +1,94 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.KubernetesUnavailableException;
+import io.kubernetes.client.openapi.ApiException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientKubernetesClientTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    private final ResilientKubernetesClient client = new ResilientKubernetesClient(1000, 1000);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(client, "maxAttempts", 1);
+        ReflectionTestUtils.setField(client, "initialBackoffMillis", 1L);
+        ReflectionTestUtils.setField(client, "maxBackoffMillis", 1L);
+        ReflectionTestUtils.setField(client, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(client, "circuitOpenMillis", OPEN_MILLIS);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsWithoutCalling() throws Exception {
+        open();
+
+        assertTrue(client.isCircuitOpen());
+        assertThrows(KubernetesUnavailableException.class, () -> client.call("readPod", this::succeed));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void nonRetryableErrorsKeepCircuitClosed() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(ApiException.class, () -> client.call("readPod", () -> fail(404)));
+        }
+
+        assertFalse(client.isCircuitOpen());
+        assertEquals("ok", client.call("readPod", this::succeed));
+    }
+
+    @Test
+    void closesWhenHalfOpenProbeSucceeds() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertEquals("ok", client.call("readPod", this::succeed));
+
+        assertFalse(client.isCircuitOpen());
+        assertEquals("ok", client.call("readPod", this::succeed));
+    }
+
+    @Test
+    void reopensWhenHalfOpenProbeThrowsRuntimeException() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertThrows(KubernetesUnavailableException.class, () -> client.call("readPod", () -> {
+            calls.incrementAndGet();
+            throw new KubernetesUnavailableException("Kubernetes client is not initialized");
+        }));
+
+        // The failed probe opens the circuit again instead of leaving it stuck half-open
+        assertTrue(client.isCircuitOpen());
+        Thread.sleep(OPEN_MILLIS + 20);
+        assertEquals("ok", client.call("readPod", this::succeed));
+        assertFalse(client.isCircuitOpen());
+    }
+
+    private void open() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ApiException.class, () -> client.call("readPod", () -> fail(503)));
+        }
+    }
+
+    private String succeed() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+
+    private String fail(int code) throws ApiException {
+        calls.incrementAndGet();
+        throw new ApiException(code, "status " + code);
+    }
+}
@@ -0,0 +1,38 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskCursorTest {
+
+    @Test
+    void roundTripsNameAndId() {
+        TaskCursor cursor = new TaskCursor("nightly backup", "65f1c0ffee0123456789abcd");
+
+        assertEquals(cursor, TaskCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsNamesWithSeparatorAndNonAsciiCharacters() {
+        TaskCursor cursor = new TaskCursor("r\u00e9sum\u00e9\0build \u2713", "65f1c0ffee0123456789abcd");
+
+        assertEquals(cursor, TaskCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encodesUrlSafeWithoutPadding() {
+        String encoded = new TaskCursor("a?b/c+d", "1").encode();
+
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="), encoded);
+    }
+
+    @Test
+    void rejectsCursorsItDidNotProduce() {
+        assertThrows(IllegalArgumentException.class, () -> TaskCursor.decode("not base64!"));
+        // Valid Base64 without a separator
+        assertThrows(IllegalArgumentException.class, () -> TaskCursor.decode("bm9zZXBhcmF0b3I"));
+    }
+}
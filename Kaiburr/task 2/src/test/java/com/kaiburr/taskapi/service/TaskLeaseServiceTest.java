@@ -0,0 +1,110 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.model.TaskLease;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskLeaseServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final TaskLeaseService taskLeaseService = new TaskLeaseService();
+    private final TaskLease lease = new TaskLease();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(taskLeaseService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(taskLeaseService, "leaseDurationSeconds", 120L);
+        ReflectionTestUtils.setField(taskLeaseService, "renewIntervalSeconds", 1L);
+        lease.setTaskId("task-1");
+        lease.setFencingToken(7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskLeaseService.shutdown();
+    }
+
+    @Test
+    void acquiresOnlyExpiredLeaseWithNextFencingToken() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(TaskLease.class))).thenReturn(lease);
+
+        assertEquals(Optional.of(lease), taskLeaseService.tryAcquire("task-1"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(TaskLease.class));
+        assertTrue(query.getValue().getQueryObject().get("expiresAt", Document.class).containsKey("$lt"));
+        assertEquals(1, update.getValue().getUpdateObject().get("$inc", Document.class).get("fencingToken"));
+    }
+
+    @Test
+    void reportsLeaseHeldElsewhereAsEmpty() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(TaskLease.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+
+        assertEquals(Optional.empty(), taskLeaseService.tryAcquire("task-1"));
+    }
+
+    @Test
+    void renewsLeaseOfItsFencingTokenUntilClosed() throws InterruptedException {
+        renewalMatches(1);
+
+        TaskLeaseService.Renewal renewal = taskLeaseService.keepAlive(lease);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, timeout(3000).atLeast(2))
+                .updateFirst(query.capture(), any(UpdateDefinition.class), eq(TaskLease.class));
+        renewal.close();
+
+        assertEquals(7L, query.getValue().getQueryObject().get("fencingToken"));
+        assertNotNull(lease.getExpiresAt());
+        int renewals = query.getAllValues().size();
+        Thread.sleep(1500);
+        verify(mongoTemplate, times(renewals)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+                eq(TaskLease.class));
+    }
+
+    @Test
+    void stopsRenewingLostLease() throws InterruptedException {
+        // Expired and taken by a newer holder: the token no longer matches
+        renewalMatches(0);
+
+        taskLeaseService.keepAlive(lease);
+        verify(mongoTemplate, timeout(3000)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+                eq(TaskLease.class));
+        Thread.sleep(1500);
+
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+                eq(TaskLease.class));
+    }
+
+    private void renewalMatches(long matched) {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(TaskLease.class)))
+                .thenReturn(UpdateResult.acknowledged(matched, matched, null));
+    }
+}
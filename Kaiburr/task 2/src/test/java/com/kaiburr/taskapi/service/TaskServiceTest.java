@@ -0,0 +1,189 @@
+package com.kaiburr.taskapi.service;
+
+import com.kaiburr.taskapi.exception.TaskConcurrencyException;
+import com.kaiburr.taskapi.model.ConcurrencyPolicy;
+import com.kaiburr.taskapi.model.ExecutionPriority;
+import com.kaiburr.taskapi.model.ExecutorBackend;
+import com.kaiburr.taskapi.model.Task;
+import com.kaiburr.taskapi.model.TaskExecution;
+import com.kaiburr.taskapi.model.TaskLease;
+import com.kaiburr.taskapi.repository.TaskRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskServiceTest {
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final TaskLeaseService taskLeaseService = mock(TaskLeaseService.class);
+    private final TaskLeaseService.Renewal renewal = mock(TaskLeaseService.Renewal.class);
+    private final ExecutionWriteBuffer executionWriteBuffer = mock(ExecutionWriteBuffer.class);
+    private final OwnerRateLimiter ownerRateLimiter = mock(OwnerRateLimiter.class);
+    private final TaskExecutor executor = mock(TaskExecutor.class);
+    private final TaskService taskService = new TaskService();
+    private final Task task = new Task("task-1", "backup", "team-a", "echo backup");
+    private final TaskLease lease = new TaskLease();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        TaskExecutorService taskExecutorService = mock(TaskExecutorService.class);
+        ExecutionRegistry executionRegistry = mock(ExecutionRegistry.class);
+        FairShareGate fairShareGate = mock(FairShareGate.class);
+        OutputDedupService outputDedupService = mock(OutputDedupService.class);
+
+        when(taskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        when(taskRepository.existsById("task-1")).thenReturn(true);
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(taskExecutorService.executorFor(task)).thenReturn(executor);
+        when(executor.getBackend()).thenReturn(ExecutorBackend.IN_MEMORY);
+        when(executor.execute(eq("task-1"), eq("echo backup"), any(ExecutionHandle.class)))
+                .thenReturn(ExecutionResult.message("backed up"));
+        when(executionRegistry.register(task, ExecutionPriority.NORMAL))
+                .thenReturn(new ExecutionHandle("exec-1", "task-1", ExecutionPriority.NORMAL));
+        when(fairShareGate.acquire(anyString(), any(ExecutionPriority.class), any())).thenReturn(() -> {
+        });
+        when(outputDedupService.resolve(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lease.setFencingToken(7);
+        when(taskLeaseService.keepAlive(lease)).thenReturn(renewal);
+
+        ReflectionTestUtils.setField(taskService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(taskService, "taskExecutorService", taskExecutorService);
+        ReflectionTestUtils.setField(taskService, "taskLeaseService", taskLeaseService);
+        ReflectionTestUtils.setField(taskService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(taskService, "executionWriteBuffer", executionWriteBuffer);
+        ReflectionTestUtils.setField(taskService, "outputDedupService", outputDedupService);
+        ReflectionTestUtils.setField(taskService, "ownerRateLimiter", ownerRateLimiter);
+        ReflectionTestUtils.setField(taskService, "fairShareGate", fairShareGate);
+        ReflectionTestUtils.setField(taskService, "executionRegistry", executionRegistry);
+    }
+
+    @Test
+    void appendsLeasedExecutionFencedByItsToken() throws Exception {
+        task.setConcurrencyPolicy(ConcurrencyPolicy.FORBID);
+        when(taskLeaseService.tryAcquire("task-1")).thenReturn(Optional.of(lease));
+        appendMatches(1);
+
+        ExecutedTask executed = taskService.executeTask("task-1", null);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Task.class));
+        assertEquals(new Document("_id", "task-1").append("$or", List.of(
+                new Document("lastFencingToken", new Document("$exists", false)),
+                new Document("lastFencingToken", new Document("$lt", 7L)))), query.getValue().getQueryObject());
+        Document written = update.getValue().getUpdateObject();
+        assertEquals(7L, written.get("$set", Document.class).get("lastFencingToken"));
+        assertSame(executed.execution(), written.get("$push", Document.class).get("taskExecutions"));
+        assertEquals("exec-1", executed.execution().getId());
+
+        verify(renewal).close();
+        verify(taskLeaseService).release(lease);
+        verify(executionWriteBuffer, never()).offer(anyString(), any(TaskExecution.class));
+    }
+
+    @Test
+    void rejectsAppendOfSupersededLeaseHolder() throws Exception {
+        task.setConcurrencyPolicy(ConcurrencyPolicy.FORBID);
+        when(taskLeaseService.tryAcquire("task-1")).thenReturn(Optional.of(lease));
+        // A holder with a newer token already wrote
+        appendMatches(0);
+
+        TaskConcurrencyException e = assertThrows(TaskConcurrencyException.class,
+                () -> taskService.executeTask("task-1", null));
+
+        assertEquals("Execution lease for task task-1 was superseded", e.getMessage());
+        verify(renewal).close();
+        verify(taskLeaseService).release(lease);
+    }
+
+    @Test
+    void refusesExecutionWhileAnotherHoldsTheLease() throws Exception {
+        task.setConcurrencyPolicy(ConcurrencyPolicy.FORBID);
+        when(taskLeaseService.tryAcquire("task-1")).thenReturn(Optional.empty());
+
+        assertThrows(TaskConcurrencyException.class, () -> taskService.executeTask("task-1", null));
+
+        verify(executor, never()).execute(anyString(), anyString(), any(ExecutionHandle.class));
+        verify(taskLeaseService, never()).release(any(TaskLease.class));
+    }
+
+    @Test
+    void waitsForLeaseWithQueuePolicy() throws Exception {
+        task.setConcurrencyPolicy(ConcurrencyPolicy.QUEUE);
+        when(taskLeaseService.acquireQueued("task-1")).thenReturn(Optional.of(lease));
+        appendMatches(1);
+
+        taskService.executeTask("task-1", null);
+
+        verify(taskLeaseService, never()).tryAcquire(anyString());
+        verify(taskLeaseService).release(lease);
+    }
+
+    @Test
+    void buffersUnleasedExecutionWithoutFencing() throws Exception {
+        when(executionWriteBuffer.offer(eq("task-1"), any(TaskExecution.class))).thenReturn(true);
+
+        ExecutedTask executed = taskService.executeTask("task-1", null);
+
+        assertEquals(List.of(executed.execution()), executed.task().getTaskExecutions());
+        verify(taskLeaseService, never()).tryAcquire(anyString());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Task.class));
+    }
+
+    @Test
+    void appendsUnfencedWhenBufferIsFull() throws Exception {
+        appendMatches(1);
+
+        taskService.executeTask("task-1", null);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Task.class));
+        assertEquals(new Document("_id", "task-1"), query.getValue().getQueryObject());
+        assertNull(update.getValue().getUpdateObject().get("$set"));
+    }
+
+    @Test
+    void savingKeepsStoredFencingTokenAndOwner() {
+        Task stored = new Task("task-1", "backup", "team-a", "echo backup");
+        stored.setVersion(3L);
+        stored.setLastFencingToken(9L);
+        when(mongoTemplate.findOne(any(Query.class), eq(Task.class))).thenReturn(stored);
+
+        // A request body carries neither the token nor, for quota purposes, a trusted owner
+        Task update = new Task("task-1", "backup", "team-b", "echo backup --full");
+        Task saved = taskService.saveTask(update);
+
+        assertEquals(9L, saved.getLastFencingToken());
+        assertEquals(3L, saved.getVersion());
+        verify(ownerRateLimiter).acquire("team-a");
+    }
+
+    private void appendMatches(long matched) {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Task.class)))
+                .thenReturn(UpdateResult.acknowledged(matched, matched, null));
+    }
+}
@@ -0,0 +1,77 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(1000, new int[] { 60, 60, 24 }, START);
+
+    @Test
+    void firesTimerOnItsTick() {
+        assertTrue(wheel.add(START + 5_000, "a"));
+
+        assertEquals(List.of(), wheel.advance(START + 4_999));
+        assertEquals(List.of("a"), wheel.advance(START + 5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rejectsTimersAlreadyDueOrBeyondSpan() {
+        assertFalse(wheel.add(START, "now"));
+        assertFalse(wheel.add(START - 1_000, "past"));
+        assertFalse(wheel.add(START + wheel.spanMillis() + 1_000, "too far"));
+        assertEquals(24L * 60 * 60 * 1000, wheel.spanMillis());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesCoarseTimersDownToTheExactTick() {
+        long[] offsets = { 59_000, 60_000, 61_000, 90_000, 3_599_000, 3_600_000, 2 * 3_600_000 + 1_000,
+                23 * 3_600_000 };
+        for (long offset : offsets) {
+            assertTrue(wheel.add(START + offset, Long.toString(offset)));
+        }
+        assertEquals(offsets.length, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        for (long now = START + 1_000; now <= START + 23 * 3_600_000; now += 1_000) {
+            for (String item : wheel.advance(now)) {
+                assertEquals(now - START, Long.parseLong(item), "fired late or early");
+                fired.add(item);
+            }
+        }
+        assertEquals(offsets.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rollsOverFromUnalignedStart() {
+        // Start just before a minute boundary, so the timer sits on the other side of it
+        long start = START - (START % 60_000) + 59_500;
+        TimingWheel<String> unaligned = new TimingWheel<>(1000, new int[] { 60, 60, 24 }, start);
+        long dueAt = start - 500 + 62_000;
+        assertTrue(unaligned.add(dueAt, "next minute"));
+
+        assertEquals(List.of(), unaligned.advance(dueAt - 1));
+        assertEquals(List.of("next minute"), unaligned.advance(dueAt));
+    }
+
+    @Test
+    void advancingOverManyTicksReturnsEverythingDue() {
+        wheel.add(START + 2_000, "a");
+        wheel.add(START + 120_000, "b");
+        wheel.add(START + 7_200_000, "c");
+
+        assertEquals(List.of("a", "b"), wheel.advance(START + 3_600_000));
+        assertEquals(List.of("c"), wheel.advance(START + 7_200_000));
+    }
+}
@@ -6,10 +6,14 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends MongoRepository<Task, String> {
 
     @Query("{'name': {$regex: ?0, $options: 'i'}}")
     List<Task> findByNameContainingIgnoreCase(String name);
+
+    @Query("{'taskExecutions.id': ?0}")
+    Optional<Task> findByExecutionId(String executionId);
 }
@@ -0,0 +1,15 @@
+package com.kaiburr.taskapi.service;
+
+import java.nio.file.Path;
+
+/**
+ * Result of an {@link OutputCapture}.
+ *
+ * @param text       output to store with the execution: everything, or the
+ *                   head and tail with an omission note in between
+ * @param totalBytes number of bytes the command produced
+ * @param elided     true if {@code text} omits part of the output
+ * @param file       file holding the full output, or null if {@code text} is complete
+ */
+public record CapturedOutput(String text, long totalBytes, boolean elided, Path file) {
+}
@@ -0,0 +1,143 @@
+package com.kaiburr.taskapi.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Captures command output with bounded memory. Output is buffered in memory up
+ * to a threshold and spilled to a file beyond it, while the first and last
+ * bytes are tracked separately so only those need to be stored inline.
+ */
+public class OutputCapture extends OutputStream {
+
+    private final String executionId;
+    private final Path spillFile;
+    private final int memoryThreshold;
+    private final byte[] head;
+    private final byte[] tail;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private OutputStream spill;
+    private int headLength;
+    private int tailPosition;
+    private int tailLength;
+    private long totalBytes;
+
+    OutputCapture(String executionId, Path spillFile, int memoryThreshold, int headBytes, int tailBytes) {
+        this.executionId = executionId;
+        this.spillFile = spillFile;
+        // Anything that fits into head + tail must stay in memory so it can be stored whole
+        this.memoryThreshold = Math.max(memoryThreshold, headBytes + tailBytes);
+        this.head = new byte[headBytes];
+        this.tail = new byte[tailBytes];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        totalBytes += length;
+
+        int toHead = Math.min(length, head.length - headLength);
+        System.arraycopy(bytes, offset, head, headLength, toHead);
+        headLength += toHead;
+        appendTail(bytes, offset, length);
+
+        if (spill == null && memory.size() + length > memoryThreshold) {
+            openSpill();
+        }
+        if (spill != null) {
+            spill.write(bytes, offset, length);
+        } else {
+            memory.write(bytes, offset, length);
+        }
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Close the capture and build the stored representation. The spill file is
+     * kept only when the stored text is not the complete output.
+     */
+    public CapturedOutput finish() throws IOException {
+        close();
+        if (totalBytes <= head.length + tail.length) {
+            return new CapturedOutput(memory.toString(StandardCharsets.UTF_8), totalBytes, false, null);
+        }
+
+        if (spill == null) {
+            openSpill();
+            spill.close();
+        }
+
+        long omitted = totalBytes - headLength - tailLength;
+        String text = new String(head, 0, headLength, StandardCharsets.UTF_8)
+                + "\n\n... [" + omitted + " bytes omitted, full output at /api/executions/"
+                + executionId + "/output] ...\n\n"
+                + new String(tailContent(), StandardCharsets.UTF_8);
+        return new CapturedOutput(text, totalBytes, true, spillFile);
+    }
+
+    /**
+     * Discard the capture, including any spilled data.
+     */
+    public void discard() throws IOException {
+        close();
+        Files.deleteIfExists(spillFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private void openSpill() throws IOException {
+        Files.createDirectories(spillFile.getParent());
+        spill = new BufferedOutputStream(Files.newOutputStream(spillFile));
+        memory.writeTo(spill);
+        memory = null;
+    }
+
+    private void appendTail(byte[] bytes, int offset, int length) {
+        if (tail.length == 0) {
+            return;
+        }
+        if (length >= tail.length) {
+            System.arraycopy(bytes, offset + length - tail.length, tail, 0, tail.length);
+            tailPosition = 0;
+            tailLength = tail.length;
+            return;
+        }
+        int first = Math.min(length, tail.length - tailPosition);
+        System.arraycopy(bytes, offset, tail, tailPosition, first);
+        System.arraycopy(bytes, offset + first, tail, 0, length - first);
+        tailPosition = (tailPosition + length) % tail.length;
+        tailLength = Math.min(tail.length, tailLength + length);
+    }
+
+    private byte[] tailContent() {
+        byte[] content = new byte[tailLength];
+        if (tailLength < tail.length) {
+            System.arraycopy(tail, 0, content, 0, tailLength);
+        } else {
+            System.arraycopy(tail, tailPosition, content, 0, tail.length - tailPosition);
+            System.arraycopy(tail, 0, content, tail.length - tailPosition, tailPosition);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,93 @@
+package com.kaiburr.taskapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Creates output captures for executions and keeps the spilled full outputs on
+ * local disk until they expire.
+ */
+@Service
+public class OutputStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputStorageService.class);
+
+    private static final Pattern EXECUTION_ID = Pattern.compile("[0-9a-fA-F-]{36}");
+
+    private final Path spillDirectory;
+    private final int memoryThresholdBytes;
+    private final int headBytes;
+    private final int tailBytes;
+    private final long retentionHours;
+
+    public OutputStorageService(
+            @Value("${task.output.spill-dir:${java.io.tmpdir}/task-outputs}") String spillDirectory,
+            @Value("${task.output.memory-threshold-bytes:262144}") int memoryThresholdBytes,
+            @Value("${task.output.head-bytes:16384}") int headBytes,
+            @Value("${task.output.tail-bytes:49152}") int tailBytes,
+            @Value("${task.output.retention-hours:24}") long retentionHours) {
+        this.spillDirectory = Paths.get(spillDirectory);
+        this.memoryThresholdBytes = memoryThresholdBytes;
+        this.headBytes = headBytes;
+        this.tailBytes = tailBytes;
+        this.retentionHours = retentionHours;
+    }
+
+    public OutputCapture newCapture(String executionId) {
+        return new OutputCapture(executionId, outputFile(executionId), memoryThresholdBytes, headBytes, tailBytes);
+    }
+
+    /**
+     * Full output file of an execution, if its output was too large to store inline.
+     */
+    public Optional<Path> findOutputFile(String executionId) {
+        if (!EXECUTION_ID.matcher(executionId).matches()) {
+            return Optional.empty();
+        }
+        Path file = outputFile(executionId);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private Path outputFile(String executionId) {
+        return spillDirectory.resolve(executionId + ".out");
+    }
+
+    @Scheduled(fixedDelayString = "${task.output.cleanup-interval-millis:3600000}")
+    public void deleteExpiredOutputs() {
+        if (!Files.isDirectory(spillDirectory)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minusSeconds(retentionHours * 3600);
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            files.filter(file -> isOlderThan(file, cutoff)).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete expired output {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to clean up spilled outputs: {}", e.getMessage());
+        }
+    }
+
+    private boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisabledOnOs(OS.WINDOWS)
+class ProcessExecutorTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private ProcessExecutor processExecutor;
+
+    @AfterEach
+    void tearDown() {
+        processExecutor.shutdown();
+    }
+
+    @Test
+    void keepsSmallOutputInline() throws Exception {
+        OutputStorageService storage = storage();
+        processExecutor = new ProcessExecutor(storage, 30, 1 << 20, 1);
+        String executionId = UUID.randomUUID().toString();
+
+        ProcessResult result = processExecutor.run("echo hello", executionId);
+
+        assertEquals("hello", result.output());
+        assertEquals(0, result.exitCode());
+        assertEquals(6, result.outputBytes());
+        assertFalse(result.outputElided());
+        assertTrue(storage.findOutputFile(executionId).isEmpty());
+    }
+
+    @Test
+    void storesHeadAndTailOfLargeOutputAndSpillsTheRest() throws Exception {
+        OutputStorageService storage = storage();
+        processExecutor = new ProcessExecutor(storage, 30, 1 << 20, 1);
+        String executionId = UUID.randomUUID().toString();
+        String expected = IntStream.rangeClosed(1, 2000).mapToObj(Integer::toString)
+                .collect(Collectors.joining("\n", "", "\n"));
+
+        ProcessResult result = processExecutor.run("seq 1 2000", executionId);
+
+        assertTrue(result.outputElided());
+        assertEquals(expected.length(), result.outputBytes());
+        assertTrue(result.output().startsWith("1\n2\n3\n"), result.output());
+        assertTrue(result.output().contains("bytes omitted, full output at /api/executions/" + executionId
+                + "/output"), result.output());
+        assertTrue(result.output().endsWith("\n1999\n2000"), result.output());
+        assertEquals(expected, Files.readString(storage.findOutputFile(executionId).orElseThrow()));
+    }
+
+    @Test
+    void killsCommandPastOutputCap() throws Exception {
+        processExecutor = new ProcessExecutor(storage(), 30, 100, 1);
+
+        ProcessResult result = processExecutor.run("yes", UUID.randomUUID().toString());
+
+        assertTrue(result.truncated());
+        assertNull(result.exitCode());
+        assertEquals(100, result.outputBytes());
+        assertTrue(result.output().endsWith("Output truncated after 100 bytes"), result.output());
+    }
+
+    private OutputStorageService storage() {
+        return new OutputStorageService(spillDirectory.toString(), 1024, 64, 64, 24);
+    }
+}
@@ -0,0 +1,110 @@
+package com.kaiburr.taskapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+@DisabledOnOs(OS.WINDOWS)
+class ShellWorkerPoolTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private ShellWorkerPool pool;
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void runsEachCommandInItsOwnSubshell() throws Exception {
+        pool = pool(storage(), 1, 30, 1 << 20);
+
+        assertEquals(3, run("FOO=bar; export FOO; echo set; exit 3").exitCode());
+
+        ProcessResult result = run("echo \"${FOO:-unset}\"");
+        assertEquals("unset", result.output());
+        assertEquals(0, result.exitCode());
+    }
+
+    @Test
+    void capsOutputOfCommandThatAlreadyExited() throws Exception {
+        pool = pool(storage(), 1, 30, 10);
+
+        // Shorter than the window kept back for the marker, so it arrives together with it
+        ProcessResult result = run("printf '%040d' 0");
+
+        assertTrue(result.truncated());
+        assertEquals(0, result.exitCode());
+        assertEquals(10, result.outputBytes());
+        assertEquals("0000000000\nOutput truncated after 10 bytes", result.output());
+        assertEquals("hi", run("echo hi").output());
+    }
+
+    @Test
+    void replacesWorkerThatTimedOut() throws Exception {
+        pool = pool(storage(), 1, 1, 1 << 20);
+
+        ProcessResult result = run("sleep 5");
+
+        assertTrue(result.timedOut());
+        assertNull(result.exitCode());
+        assertEquals("hi", run("echo hi").output());
+    }
+
+    @Test
+    void discardsSpilledOutputWhenRunFails() throws Exception {
+        OutputStorageService storage = mock(OutputStorageService.class);
+        Path spillFile = spillDirectory.resolve("failed.out");
+        OutputCapture failing = spy(new OutputCapture("failed", spillFile, 16, 4, 4));
+        doThrow(new IOException("disk full")).when(failing).finish();
+        when(storage.newCapture(anyString())).thenReturn(failing);
+        pool = pool(storage, 1, 30, 1 << 20);
+
+        IOException e = assertThrows(IOException.class, () -> run("seq 1 100"));
+
+        assertEquals("disk full", e.getMessage());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    @Test
+    void givesUpWaitingForWorkerAfterTimeout() {
+        pool = pool(storage(), 0, 1, 1 << 20);
+
+        IOException e = assertThrows(IOException.class, () -> run("echo hi"));
+
+        assertEquals("No shell worker became available within 1 seconds", e.getMessage());
+    }
+
+    private ProcessResult run(String command) throws IOException, InterruptedException {
+        return pool.run(command, UUID.randomUUID().toString());
+    }
+
+    private OutputStorageService storage() {
+        return new OutputStorageService(spillDirectory.toString(), 1024, 64, 64, 24);
+    }
+
+    private static ShellWorkerPool pool(OutputStorageService storage, int size, long timeoutSeconds,
+            long maxOutputBytes) {
+        return new ShellWorkerPool(storage, true, size, 500, timeoutSeconds, maxOutputBytes);
+    }
+}